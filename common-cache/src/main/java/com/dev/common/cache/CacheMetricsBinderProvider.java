@@ -0,0 +1,48 @@
+package com.dev.common.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+
+/**
+ * Lets the actuator cache metrics see through the near-cache and single-flight wrappers: the
+ * standard cache.gets/puts/evictions meters come from the underlying RedisCache, and a near
+ * cache adds its L1 statistics. Other caches are left to the built-in providers.
+ */
+public class CacheMetricsBinderProvider implements CacheMeterBinderProvider<Cache> {
+
+    @Override
+    public MeterBinder getMeterBinder(Cache cache, Iterable<Tag> tags) {
+        RedisCache redisCache = unwrap(cache);
+        if (redisCache == null) {
+            return null;
+        }
+
+        MeterBinder redisMetrics = new RedisCacheMetrics(redisCache, tags);
+        if (cache instanceof NearCache nearCache) {
+            return registry -> {
+                redisMetrics.bindTo(registry);
+                nearCache.bindLocalMetrics(registry, tags);
+            };
+        }
+        return redisMetrics;
+    }
+
+    private static RedisCache unwrap(Cache cache) {
+        Cache current = cache;
+        while (true) {
+            if (current instanceof RedisCache redisCache) {
+                return redisCache;
+            } else if (current instanceof NearCache nearCache) {
+                current = nearCache.getRemote();
+            } else if (current instanceof SingleFlightCache singleFlightCache) {
+                current = singleFlightCache.getDelegate();
+            } else {
+                return null;
+            }
+        }
+    }
+}
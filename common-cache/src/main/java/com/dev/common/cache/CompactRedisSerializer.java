@@ -0,0 +1,179 @@
+package com.dev.common.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Redis value serializer that stores registered DTOs (and lists of them) as Smile, the binary
+ * form of JSON, behind a small header instead of class-annotated JSON:
+ * <pre>
+ * byte 0  magic 0xC7
+ * byte 1  format version
+ * byte 2  flags (bit 0: payload is gzip-compressed)
+ * byte 3  kind: 0 = registered type, 1 = list of a registered type, 2 = typed JSON fallback
+ * byte 4  registered type id (kinds 0 and 1)
+ * </pre>
+ * Values without the magic byte are read as the JSON written before this format existed, so
+ * entries of either format can be read whichever format is being written. Entries from a newer
+ * format version or with an unknown type id are treated as cache misses.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactRedisSerializer.class);
+
+    public static final byte MAGIC = (byte) 0xC7;
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 5;
+    private static final byte FLAG_GZIP = 1;
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_LIST = 1;
+    private static final byte KIND_JSON = 2;
+
+    private final List<Class<?>> registeredTypes;
+    private final Map<Class<?>, Byte> typeIds = new HashMap<>();
+    private final boolean writeCompact;
+    private final int compressionThreshold;
+    private final ObjectMapper smileMapper;
+    // java.time fields (orders carry LocalDateTime) are beyond the plain JSON serializer
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer()
+            .configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+
+    /**
+     * @param registeredTypes      types written in the compact form; a type's id is its position in
+     *                             this list, so types may only ever be appended
+     * @param writeCompact         false keeps writing JSON (reads accept both formats)
+     * @param compressionThreshold payloads larger than this many bytes are gzip-compressed
+     */
+    public CompactRedisSerializer(List<Class<?>> registeredTypes, boolean writeCompact, int compressionThreshold) {
+        this.registeredTypes = List.copyOf(registeredTypes);
+        for (int i = 0; i < this.registeredTypes.size(); i++) {
+            typeIds.put(this.registeredTypes.get(i), (byte) i);
+        }
+        this.writeCompact = writeCompact;
+        this.compressionThreshold = compressionThreshold;
+        // Tolerate fields added or removed between deployments
+        this.smileMapper = new ObjectMapper(new SmileFactory())
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (!writeCompact) {
+            return jsonSerializer.serialize(value);
+        }
+
+        try {
+            byte kind;
+            byte typeId = 0;
+            byte[] payload;
+            Byte elementTypeId = listElementTypeId(value);
+            if (typeIds.containsKey(value.getClass())) {
+                kind = KIND_OBJECT;
+                typeId = typeIds.get(value.getClass());
+                payload = smileMapper.writeValueAsBytes(value);
+            } else if (elementTypeId != null) {
+                kind = KIND_LIST;
+                typeId = elementTypeId;
+                payload = smileMapper.writeValueAsBytes(value);
+            } else {
+                kind = KIND_JSON;
+                payload = jsonSerializer.serialize(value);
+            }
+
+            boolean compress = payload.length > compressionThreshold;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER_LENGTH + payload.length);
+            out.write(new byte[]{MAGIC, FORMAT_VERSION, compress ? FLAG_GZIP : 0, kind, typeId});
+            if (compress) {
+                try (OutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(payload);
+                }
+            } else {
+                out.write(payload);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write compact cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Truncated compact cache value of " + bytes.length + " bytes");
+        }
+        if (bytes[1] > FORMAT_VERSION) {
+            logger.warn("Ignoring cache value written in newer format version {}", bytes[1]);
+            return null;
+        }
+
+        byte kind = bytes[3];
+        byte typeId = bytes[4];
+        try (InputStream payload = payload(bytes)) {
+            if (kind == KIND_JSON) {
+                return jsonSerializer.deserialize(payload.readAllBytes());
+            }
+            if (typeId < 0 || typeId >= registeredTypes.size()) {
+                logger.warn("Ignoring cache value with unknown type id {}", typeId);
+                return null;
+            }
+
+            Class<?> type = registeredTypes.get(typeId);
+            JavaType javaType = kind == KIND_LIST
+                    ? smileMapper.getTypeFactory().constructCollectionType(ArrayList.class, type)
+                    : smileMapper.constructType(type);
+            return smileMapper.readValue(payload, javaType);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read compact cache value: " + e.getMessage(), e);
+        }
+    }
+
+    // Type id shared by every element of a non-empty list, or null when the list cannot be written compactly
+    private Byte listElementTypeId(Object value) {
+        if (!(value instanceof List<?> list) || list.isEmpty() || list.get(0) == null) {
+            return null;
+        }
+        Class<?> elementType = list.get(0).getClass();
+        for (Object element : list) {
+            if (element == null || element.getClass() != elementType) {
+                return null;
+            }
+        }
+        return typeIds.get(elementType);
+    }
+
+    private static InputStream payload(byte[] bytes) throws IOException {
+        InputStream payload = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        return (bytes[2] & FLAG_GZIP) != 0 ? new GZIPInputStream(payload) : payload;
+    }
+}
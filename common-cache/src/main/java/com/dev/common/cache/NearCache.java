@@ -0,0 +1,217 @@
+package com.dev.common.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Two-tier cache: a bounded in-process L1 in front of the Redis-backed L2. Reads are served from
+ * L1 when possible; every write or eviction goes to Redis first and is then broadcast so other
+ * instances drop their L1 copy. L1 hands out the cached instance itself, so callers must treat
+ * cached values as read-only. A value read from Redis only stays in L1 if no invalidation of its
+ * key came in while it was being read, so a slow read cannot bring back a value just replaced.
+ * Null values are not kept in L1.
+ */
+public class NearCache implements Cache {
+
+    // Invalidation generations by key hash; keys sharing a slot merely skip an L1 put now and then
+    private static final int GENERATION_SLOTS = 1024;
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final NearCacheManager cacheManager;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+
+    NearCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+              NearCacheManager cacheManager) {
+        this.remote = remote;
+        this.local = local;
+        this.cacheManager = cacheManager;
+    }
+
+    static int weigh(ValueWrapper wrapper) {
+        Object value = wrapper.get();
+        return value instanceof Collection<?> collection ? collection.size() + 1 : 1;
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            return wrapper;
+        }
+
+        long generation = generation(localKey);
+        wrapper = remote.get(key);
+        if (wrapper != null) {
+            putLocal(localKey, wrapper, generation);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper wrapper = local.getIfPresent(localKey);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        long generation = generation(localKey);
+        T value = remote.get(key, valueLoader);
+        putLocal(localKey, new SimpleValueWrapper(value), generation);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        // Reads of the previous value still in flight must not overwrite this one
+        advance(localKey);
+        if (value != null) {
+            local.put(localKey, new SimpleValueWrapper(value));
+        } else {
+            local.invalidate(localKey);
+        }
+        cacheManager.publishEviction(getName(), localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        evictLocal(localKey(key));
+        if (existing == null) {
+            cacheManager.publishEviction(getName(), localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        cacheManager.publishEviction(getName(), localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        evictLocal(localKey(key));
+        cacheManager.publishEviction(getName(), localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        cacheManager.publishEviction(getName(), null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        clearLocal();
+        cacheManager.publishEviction(getName(), null);
+        return invalidated;
+    }
+
+    Cache getRemote() {
+        return remote;
+    }
+
+    // L1 statistics under their own names; the standard cache.* meters describe the Redis tier
+    void bindLocalMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+        FunctionCounter.builder("cache.near.gets", local, l1 -> l1.stats().hitCount())
+                .description("L1 lookups that found a value")
+                .tags(tags)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.near.gets", local, l1 -> l1.stats().missCount())
+                .description("L1 lookups that fell through to Redis")
+                .tags(tags)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.near.evictions", local, l1 -> l1.stats().evictionCount())
+                .description("L1 entries evicted for size or age")
+                .tags(tags)
+                .register(registry);
+        Gauge.builder("cache.near.size", local, l1 -> l1.estimatedSize())
+                .description("Approximate number of L1 entries")
+                .tags(tags)
+                .register(registry);
+    }
+
+    // The generation moves before the entry goes, so a read that started earlier sees it moved
+    void evictLocal(String localKey) {
+        advance(localKey);
+        local.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        for (int slot = 0; slot < GENERATION_SLOTS; slot++) {
+            generations.incrementAndGet(slot);
+        }
+        local.invalidateAll();
+    }
+
+    // Keeps a value read from Redis unless its key was invalidated since the read began. Checked
+    // again after the put: an invalidation between check and put would otherwise be lost.
+    private void putLocal(String localKey, ValueWrapper wrapper, long generation) {
+        if (wrapper.get() == null || generation(localKey) != generation) {
+            return;
+        }
+        local.put(localKey, wrapper);
+        if (generation(localKey) != generation) {
+            local.asMap().remove(localKey, wrapper);
+        }
+    }
+
+    private long generation(String localKey) {
+        return generations.get(slot(localKey));
+    }
+
+    private void advance(String localKey) {
+        generations.incrementAndGet(slot(localKey));
+    }
+
+    private static int slot(String localKey) {
+        return Math.floorMod(localKey.hashCode(), GENERATION_SLOTS);
+    }
+
+    // Same string form Redis uses for the key, so invalidation messages can name it
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
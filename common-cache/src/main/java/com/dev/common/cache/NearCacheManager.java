@@ -0,0 +1,98 @@
+package com.dev.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps the Redis cache manager so every cache gets an in-process L1, and keeps the L1s of all
+ * instances coherent through a Redis pub/sub channel. Messages have the form
+ * {@code instanceId|cacheName|key}; an empty key clears the whole cache.
+ */
+public class NearCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheManager.class);
+
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager remoteCacheManager;
+    private final NearCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager remoteCacheManager, NearCacheProperties properties,
+                            StringRedisTemplate redisTemplate) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote == null) {
+                return null;
+            }
+            NearCacheProperties.CacheSpec spec = properties.specFor(cacheName);
+            return new NearCache(remote, Caffeine.newBuilder()
+                    .maximumWeight(spec.getMaxWeight())
+                    .weigher((String key, Cache.ValueWrapper value) -> NearCache.weigh(value))
+                    .expireAfterWrite(spec.getTtl())
+                    .recordStats()
+                    .build(), this);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    public ChannelTopic getInvalidationTopic() {
+        return new ChannelTopic(properties.getInvalidationChannel());
+    }
+
+    void publishEviction(String cacheName, String key) {
+        String message = instanceId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : "");
+        try {
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(), message);
+        } catch (Exception e) {
+            // Other instances fall back to the L1 TTL
+            logger.warn("Failed to publish cache invalidation for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+
+        NearCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts[2].isEmpty()) {
+            logger.debug("Clearing near cache {} on remote invalidation", parts[1]);
+            cache.clearLocal();
+        } else {
+            logger.debug("Evicting {}::{} from near cache on remote invalidation", parts[1], parts[2]);
+            cache.evictLocal(parts[2]);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.dev.common.cache;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the in-process L1 cache kept in front of Redis, e.g.
+ * {@code cache.near.caches.orders.max-weight=5000} or {@code cache.near.caches.orders.ttl=30s}.
+ * Each service binds them under {@code cache.near} and names its own invalidation channel.
+ */
+@Data
+public class NearCacheProperties {
+
+    private boolean enabled = false;
+
+    // Pub/sub channel shared by all instances of one service
+    private String invalidationChannel;
+
+    private CacheSpec defaults = new CacheSpec();
+
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    public CacheSpec specFor(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class CacheSpec {
+        // Total weight per cache; a single value weighs 1, a collection weighs its size plus 1
+        private long maxWeight = 10_000;
+
+        // Upper bound on staleness should an invalidation message be lost
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,120 @@
+package com.dev.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache decorator for {@code @Cacheable(sync = true)}: on a miss, concurrent callers for the same
+ * key share one value load instead of each hitting the database. Unlike the delegate's own
+ * synchronized get, loads of different keys do not wait for each other. The time each value load
+ * takes is recorded as {@code cache.load}.
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Cache delegate;
+    private final SingleFlight<Object, Object> loads;
+    private final Timer successfulLoads;
+    private final Timer failedLoads;
+
+    SingleFlightCache(Cache delegate, SingleFlight<Object, Object> loads, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.loads = loads;
+        this.successfulLoads = loadTimer(delegate.getName(), "success", meterRegistry);
+        this.failedLoads = loadTimer(delegate.getName(), "failure", meterRegistry);
+    }
+
+    private static Timer loadTimer(String cacheName, String result, MeterRegistry meterRegistry) {
+        return Timer.builder("cache.load")
+                .description("Time taken to load a value on a cache miss")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        return (T) loads.load(key, () -> {
+            // A load that finished just before this one started may already have filled the entry
+            ValueWrapper current = delegate.get(key);
+            if (current != null) {
+                return current.get();
+            }
+            T value;
+            long start = System.nanoTime();
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                failedLoads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            successfulLoads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            delegate.put(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
@@ -0,0 +1,40 @@
+package com.dev.common.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every cache of the delegate manager in a {@link SingleFlightCache}, with one
+ * single-flight group (and one set of metrics, tagged by cache name) per cache.
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache cache = delegate.getCache(cacheName);
+            return cache != null
+                    ? new SingleFlightCache(cache, new SingleFlight<>(cacheName, meterRegistry), meterRegistry)
+                    : null;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
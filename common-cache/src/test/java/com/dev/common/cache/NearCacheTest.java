@@ -0,0 +1,116 @@
+package com.dev.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The L1 of a near cache against an in-memory stand-in for Redis: a read that an invalidation
+ * overtook must not leave its value in L1, and a null loader result is never kept there.
+ */
+class NearCacheTest {
+
+    private final BlockingCache remote = new BlockingCache();
+    private final NearCacheManager cacheManager = new NearCacheManager(null, new NearCacheProperties(),
+            mock(StringRedisTemplate.class));
+    private final NearCache cache = new NearCache(remote, Caffeine.newBuilder()
+            .<String, Cache.ValueWrapper>build(), cacheManager);
+    private final ExecutorService reader = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        reader.shutdownNow();
+    }
+
+    @Test
+    void readOvertakenByAnInvalidationIsNotKept() throws Exception {
+        remote.put(1L, "stale");
+        remote.blockNextGet();
+        Future<Cache.ValueWrapper> read = reader.submit(() -> cache.get(1L));
+        assertTrue(remote.reading.await(5, TimeUnit.SECONDS));
+
+        // Another instance replaced the value while the read was on its way back
+        remote.put(1L, "fresh");
+        cache.evictLocal("1");
+        remote.release.countDown();
+        assertEquals("stale", read.get(5, TimeUnit.SECONDS).get());
+
+        assertEquals("fresh", cache.get(1L).get());
+        assertEquals(2, remote.gets.get());
+    }
+
+    @Test
+    void readWithoutInvalidationIsServedFromL1() {
+        remote.put(1L, "value");
+
+        assertEquals("value", cache.get(1L).get());
+        assertEquals("value", cache.get(1L).get());
+        assertEquals(1, remote.gets.get());
+    }
+
+    @Test
+    void nullLoaderResultIsNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        // Gone from Redis, as after its TTL; an L1 copy of the null would still answer
+        remote.evict(1L);
+        assertEquals("loaded", cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    // Can hold one get between reading the value and returning it
+    private static class BlockingCache extends ConcurrentMapCache {
+
+        private final AtomicInteger gets = new AtomicInteger();
+        private final CountDownLatch reading = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean block;
+
+        BlockingCache() {
+            // Like the Redis caches, which keep null values by default
+            super("test", true);
+        }
+
+        void blockNextGet() {
+            block = true;
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            gets.incrementAndGet();
+            ValueWrapper wrapper = super.get(key);
+            if (block) {
+                block = false;
+                reading.countDown();
+                try {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return wrapper;
+        }
+    }
+}
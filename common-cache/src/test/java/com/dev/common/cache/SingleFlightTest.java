@@ -0,0 +1,132 @@
+package com.dev.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Loads of one key coalesced across concurrent callers. The followers are only released once the
+ * coalesced counter shows they all joined the leader's load, so nothing here depends on timing.
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return "value-" + loads.get();
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            assertEquals("value-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.singleflight.loads").counter().count());
+        assertEquals(CALLERS - 1, meterRegistry.get("cache.singleflight.coalesced").counter().count());
+    }
+
+    @Test
+    void exceptionReachesEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Downstream unavailable");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently(() -> {
+            await(release);
+            throw failure;
+        });
+
+        release.countDown();
+        for (Future<String> result : results) {
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, thrown.getCause());
+        }
+    }
+
+    @Test
+    void keyIsReleasedOnceTheLoadCompletes() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("first", singleFlight.load(1L, () -> {
+            loads.incrementAndGet();
+            return "first";
+        }));
+        assertThrows(IllegalStateException.class, () -> singleFlight.load(1L, () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("Failed");
+        }));
+        // Neither the result nor the failure is kept
+        assertEquals("third", singleFlight.load(1L, () -> {
+            loads.incrementAndGet();
+            return "third";
+        }));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void differentKeysLoadIndependently() {
+        String outer = singleFlight.load(1L, () -> "outer-" + singleFlight.load(2L, () -> "inner"));
+
+        assertEquals("outer-inner", outer);
+        assertEquals(2, meterRegistry.get("cache.singleflight.loads").counter().count());
+    }
+
+    // Starts the leader, then the followers, and returns once every follower has joined its load
+    private List<Future<String>> callConcurrently(Supplier<String> loader) throws InterruptedException {
+        CountDownLatch leading = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(callers.submit(() -> singleFlight.load(1L, () -> {
+            leading.countDown();
+            return loader.get();
+        })));
+        assertTrue(leading.await(5, TimeUnit.SECONDS), "the first caller should start the load");
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(callers.submit(() -> singleFlight.load(1L, loader)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("cache.singleflight.coalesced").counter().count() < CALLERS - 1) {
+            assertTrue(System.nanoTime() < deadline, "every follower should join the in-flight load");
+            Thread.sleep(1);
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
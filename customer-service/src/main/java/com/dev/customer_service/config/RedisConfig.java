@@ -1,5 +1,17 @@
 package com.dev.customer_service.config;
 
+import com.dev.common.cache.CompactRedisSerializer;
+import com.dev.common.cache.CacheMetricsBinderProvider;
+import com.dev.common.cache.NearCacheManager;
+import com.dev.common.cache.NearCacheProperties;
+import com.dev.common.cache.SingleFlightCacheManager;
+import com.dev.customer_service.dto.CustomerDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,32 +19,79 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    // compact (default) or json; reads accept both, so switching back and forth is safe
+    @Value("${cache.serializer.format:compact}")
+    private String serializerFormat;
+
+    @Value("${cache.serializer.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    // Bound over these defaults, so cache.near.invalidation-channel still overrides the channel
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    @ConfigurationProperties(prefix = "cache.near")
+    public NearCacheProperties nearCacheProperties() {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setInvalidationChannel("customer-service:cache-invalidation");
+        return properties;
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, NearCacheProperties nearCacheProperties,
+                                     StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(60))
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer()));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         cacheConfigurations.put("customers", defaultConfig.entryTtl(Duration.ofMinutes(30)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
+                // Hit/miss/put counts for the cache metrics
+                .enableStatistics()
                 .build();
+        // Not a bean of its own once wrapped, so initialize the configured caches here
+        redisCacheManager.afterPropertiesSet();
+
+        // Concurrent misses for the same key share one load (see @Cacheable(sync = true))
+        CacheManager singleFlightCacheManager = new SingleFlightCacheManager(redisCacheManager, meterRegistry);
+        if (!nearCacheProperties.isEnabled()) {
+            return singleFlightCacheManager;
+        }
+        return new NearCacheManager(singleFlightCacheManager, nearCacheProperties, stringRedisTemplate);
+    }
+
+    @Bean
+    public CacheMeterBinderProvider<Cache> cacheMetricsBinderProvider() {
+        return new CacheMetricsBinderProvider();
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof NearCacheManager nearCacheManager) {
+            container.addMessageListener(nearCacheManager, nearCacheManager.getInvalidationTopic());
+        }
+        return container;
     }
 
     @Bean
@@ -40,11 +99,18 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(valueSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setHashValueSerializer(valueSerializer());
         template.setEnableTransactionSupport(true);
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    // Cache entries and redisTemplate values share one format so both can read what the other wrote
+    private RedisSerializer<Object> valueSerializer() {
+        // Append only: a type's id is its position in this list
+        List<Class<?>> registeredTypes = List.of(CustomerDTO.class);
+        return new CompactRedisSerializer(registeredTypes, "compact".equals(serializerFormat), compressionThreshold);
+    }
+}
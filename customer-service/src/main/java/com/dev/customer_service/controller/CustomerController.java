@@ -39,6 +39,15 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
 
+    @GetMapping("/batch")
+    @RateLimiter(name = "customerService")
+    public ResponseEntity<List<CustomerDTO>> getCustomers(@RequestParam List<Long> ids) {
+        logger.info("Fetching customers in batch: {}", ids);
+        List<CustomerDTO> customers = customerService.getCustomers(ids);
+        logger.info("Fetched {} customers in batch", customers.size());
+        return ResponseEntity.ok(customers);
+    }
+
     @PostMapping
     @RateLimiter(name = "customerService")
     public ResponseEntity<CustomerDTO> createCustomer(@Valid @RequestBody CustomerDTO customerDTO) {
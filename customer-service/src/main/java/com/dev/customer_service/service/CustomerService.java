@@ -7,13 +7,21 @@ import com.dev.customer_service.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,8 +31,11 @@ public class CustomerService {
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
     private final CustomerRepository customerRepository;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
 
-    @Cacheable(value = "customers", key = "#id", unless = "#result == null")
+    // sync: concurrent misses for one id share a single database load
+    @Cacheable(value = "customers", key = "#id", sync = true)
     public CustomerDTO getCustomer(Long id) {
         logger.info("Fetching customer with ID: {}", id);
         CustomerDTO customer = convertToDTO(
@@ -35,6 +46,55 @@ public class CustomerService {
         return customer;
     }
 
+    public List<CustomerDTO> getCustomers(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        logger.info("Fetching {} customers in batch", distinctIds.size());
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+
+        // One multi-get against the customers cache for the whole batch
+        List<String> cacheKeys = distinctIds.stream()
+                .map(id -> "customers::" + id)
+                .collect(Collectors.toList());
+        List<Object> cached = redisTemplate.opsForValue().multiGet(cacheKeys);
+
+        Map<Long, CustomerDTO> customers = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (value instanceof CustomerDTO customer) {
+                customers.put(distinctIds.get(i), customer);
+            } else {
+                misses.add(distinctIds.get(i));
+            }
+        }
+
+        // Single query for the misses, written back so the next batch hits the cache
+        if (!misses.isEmpty()) {
+            logger.debug("Loading {} uncached customers from the database", misses.size());
+            Cache cache = cacheManager.getCache("customers");
+            customerRepository.findAllById(misses).forEach(customer -> {
+                CustomerDTO dto = convertToDTO(customer);
+                customers.put(dto.getId(), dto);
+                if (cache != null) {
+                    cache.put(dto.getId(), dto);
+                }
+            });
+        }
+
+        List<CustomerDTO> result = distinctIds.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        logger.info("Fetched {} of {} requested customers ({} from cache)",
+                result.size(), distinctIds.size(), distinctIds.size() - misses.size());
+        return result;
+    }
+
     @Cacheable(value = "customers", unless = "#result.isEmpty()")
     public List<CustomerDTO> getAllCustomers() {
         logger.info("Fetching all customers");
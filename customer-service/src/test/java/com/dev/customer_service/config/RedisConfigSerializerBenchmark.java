@@ -0,0 +1,90 @@
+package com.dev.customer_service.config;
+
+import com.dev.customer_service.dto.CustomerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the value serializer RedisConfig installs for cached customers, for a
+ * single customer and for a cached customer list. The serializer is taken from the configured
+ * redisTemplate; no Redis connection is opened.
+ * Run with {@code mvn -P benchmark test -Djmh.include=RedisConfigSerializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisConfigSerializerBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    @Param({"json", "compact"})
+    public String format;
+
+    @Param({"customer", "customerList"})
+    public String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisConfig redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "serializerFormat", format);
+        ReflectionTestUtils.setField(redisConfig, "compressionThreshold", 1024);
+        serializer = (RedisSerializer<Object>) redisConfig.redisTemplate(new LettuceConnectionFactory()).getValueSerializer();
+
+        if ("customer".equals(payload)) {
+            value = customer(1);
+        } else {
+            List<CustomerDTO> customers = new ArrayList<>();
+            for (long id = 1; id <= LIST_SIZE; id++) {
+                customers.add(customer(id));
+            }
+            value = customers;
+        }
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    private static CustomerDTO customer(long id) {
+        return CustomerDTO.builder()
+                .id(id)
+                .firstName("Test")
+                .lastName("Customer " + id)
+                .email("customer" + id + "@example.com")
+                .phone("+15550100" + String.format("%03d", id % 1000))
+                .address(id + " Main Street, Springfield")
+                .active(true)
+                .build();
+    }
+}
@@ -1,12 +1,11 @@
 package com.dev.order_service.aspect;
 
 import com.dev.order_service.annotation.ValidateOrder;
-import com.dev.order_service.client.CustomerClient;
-import com.dev.order_service.client.ProductClient;
 import com.dev.order_service.dto.CustomerDTO;
 import com.dev.order_service.dto.OrderDTO;
 import com.dev.order_service.dto.ProductDTO;
 import com.dev.order_service.exception.OrderValidationException;
+import com.dev.order_service.service.OrderLookupContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -20,8 +19,7 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class OrderValidationAspect {
 
-    private final CustomerClient customerClient;
-    private final ProductClient productClient;
+    private final OrderLookupContext orderLookupContext;
 
     @Around("@annotation(validateOrder)")
     public Object validateOrder(ProceedingJoinPoint joinPoint, ValidateOrder validateOrder) throws Throwable {
@@ -56,7 +54,7 @@ public class OrderValidationAspect {
 
     private void validateCustomer(Long customerId) {
         try {
-            CustomerDTO customer = customerClient.getCustomer(customerId);
+            CustomerDTO customer = orderLookupContext.getCustomer(customerId);
             if (!customer.getActive()) {
                 throw new OrderValidationException("Customer account is not active");
             }
@@ -76,7 +74,7 @@ public class OrderValidationAspect {
         orderDTO.getItems().forEach(item -> {
             try {
                 // Validate product existence and stock
-                ProductDTO product = productClient.getProduct(item.getProductId());
+                ProductDTO product = orderLookupContext.getProduct(item.getProductId());
 
                 // Validate product stock if required
                 if (product.getStockQuantity() < item.getQuantity()) {
@@ -1,18 +1,36 @@
 package com.dev.order_service.client;
 
-import com.dev.order_service.client.fallback.CustomerClientFallback;
+import com.dev.order_service.client.fallback.CustomerClientFallbackFactory;
 import com.dev.order_service.dto.CustomerDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @FeignClient(
         name = "customer-service",
         url = "${client.customer-service.url}",
-        fallback = CustomerClientFallback.class
+        fallbackFactory = CustomerClientFallbackFactory.class
 )
 public interface CustomerClient {
 
     @GetMapping("/api/customers/{id}")
     CustomerDTO getCustomer(@PathVariable("id") Long id);
-}
\ No newline at end of file
+
+    @GetMapping("/api/customers/batch")
+    List<CustomerDTO> getCustomers(@RequestParam("ids") Collection<Long> ids);
+
+    // Async variants so callers can overlap downstream calls; the executor runs the blocking call
+    default CompletableFuture<CustomerDTO> getCustomerAsync(Long id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getCustomer(id), executor);
+    }
+
+    default CompletableFuture<List<CustomerDTO>> getCustomersAsync(Collection<Long> ids, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getCustomers(ids), executor);
+    }
+}
@@ -1,24 +1,50 @@
 package com.dev.order_service.client;
 
-import com.dev.order_service.client.fallback.ProductClientFallback;
+import com.dev.order_service.client.fallback.ProductClientFallbackFactory;
 import com.dev.order_service.dto.ProductDTO;
+import com.dev.order_service.dto.StockReservationDTO;
+import com.dev.order_service.dto.StockReservationOutcomeDTO;
+import com.dev.order_service.dto.StockReservationResultDTO;
 import com.dev.order_service.dto.StockUpdateDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 @FeignClient(
         name = "product-service",
         url = "${client.product-service.url}",
-        fallback = ProductClientFallback.class
+        fallbackFactory = ProductClientFallbackFactory.class
 )
 public interface ProductClient {
 
     @GetMapping("/api/products/{id}")
     ProductDTO getProduct(@PathVariable("id") Long id);
 
+    @GetMapping("/api/products")
+    List<ProductDTO> getProducts(@RequestParam("ids") Collection<Long> ids);
+
     @PostMapping("/api/products/{id}/deduct-stock")
     void deductStock(@PathVariable("id") Long id, @RequestBody StockUpdateDTO stockUpdate);
 
     @PostMapping("/api/products/{id}/restore-stock")
     void restoreStock(@PathVariable("id") Long id, @RequestBody StockUpdateDTO stockUpdate);
-}
\ No newline at end of file
+
+    @PostMapping("/api/products/stock/reservations")
+    StockReservationResultDTO reserveStock(@RequestBody StockReservationDTO reservation);
+
+    @PostMapping("/api/products/stock/reservations/batch")
+    List<StockReservationOutcomeDTO> reserveStockBatch(@RequestBody List<StockReservationDTO> reservations);
+
+    // Async variants so callers can overlap downstream calls; the executor runs the blocking call
+    default CompletableFuture<ProductDTO> getProductAsync(Long id, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getProduct(id), executor);
+    }
+
+    default CompletableFuture<List<ProductDTO>> getProductsAsync(Collection<Long> ids, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getProducts(ids), executor);
+    }
+}
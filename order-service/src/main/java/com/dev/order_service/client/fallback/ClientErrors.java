@@ -0,0 +1,28 @@
+package com.dev.order_service.client.fallback;
+
+import com.dev.order_service.exception.OrderNotFoundException;
+import feign.FeignException;
+
+/**
+ * Tells the downstream's answers to a bad request (400, 404 and other 4xx, as decoded by
+ * FeignErrorDecoder) apart from the downstream being unavailable. Only the latter should trip a
+ * circuit breaker or be replaced by a fallback; the former reach the caller unchanged.
+ */
+public final class ClientErrors {
+
+    private ClientErrors() {
+    }
+
+    public static boolean isClientError(Throwable throwable) {
+        return throwable instanceof IllegalArgumentException
+                || throwable instanceof OrderNotFoundException
+                || throwable instanceof FeignException feignException
+                && feignException.status() >= 400 && feignException.status() < 500;
+    }
+
+    static void rethrowIfClientError(Throwable cause) {
+        if (isClientError(cause)) {
+            throw (RuntimeException) cause;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 public class CustomerClientFallback implements CustomerClient {
 
@@ -25,4 +28,14 @@ public class CustomerClientFallback implements CustomerClient {
         logger.error("Throwing exception: {}", errorMessage);
         throw new ServiceUnavailableException(errorMessage);
     }
+
+    @Override
+    public List<CustomerDTO> getCustomers(Collection<Long> ids) {
+        String requestUrl = customerServiceUrl + "/api/customers/batch";
+        logger.error("Fallback invoked for getCustomers method. URL: {}", requestUrl);
+        logger.warn("Failed to fetch customer details for {} customer IDs", ids.size());
+        String errorMessage = "Customer service is currently unavailable";
+        logger.error("Throwing exception: {}", errorMessage);
+        throw new ServiceUnavailableException(errorMessage);
+    }
 }
@@ -0,0 +1,20 @@
+package com.dev.order_service.client.fallback;
+
+import com.dev.order_service.client.CustomerClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+// Client errors are rethrown as they are; only failed or rejected calls get the fallback
+@Component
+@RequiredArgsConstructor
+public class CustomerClientFallbackFactory implements FallbackFactory<CustomerClient> {
+
+    private final CustomerClientFallback fallback;
+
+    @Override
+    public CustomerClient create(Throwable cause) {
+        ClientErrors.rethrowIfClientError(cause);
+        return fallback;
+    }
+}
@@ -2,10 +2,16 @@ package com.dev.order_service.client.fallback;
 
 import com.dev.order_service.client.ProductClient;
 import com.dev.order_service.dto.ProductDTO;
+import com.dev.order_service.dto.StockReservationDTO;
+import com.dev.order_service.dto.StockReservationOutcomeDTO;
+import com.dev.order_service.dto.StockReservationResultDTO;
 import com.dev.order_service.dto.StockUpdateDTO;
 import com.dev.order_service.exception.ServiceUnavailableException;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 public class ProductClientFallback implements ProductClient {
 
@@ -14,6 +20,11 @@ public class ProductClientFallback implements ProductClient {
         throw new ServiceUnavailableException("Product service is currently unavailable");
     }
 
+    @Override
+    public List<ProductDTO> getProducts(Collection<Long> ids) {
+        throw new ServiceUnavailableException("Product service is currently unavailable");
+    }
+
     @Override
     public void deductStock(Long id, StockUpdateDTO stockUpdate) {
         throw new ServiceUnavailableException("Product service is currently unavailable - cannot deduct stock");
@@ -23,4 +34,16 @@ public class ProductClientFallback implements ProductClient {
     public void restoreStock(Long id, StockUpdateDTO stockUpdate) {
         throw new ServiceUnavailableException("Product service is currently unavailable - cannot restore stock");
     }
-}
\ No newline at end of file
+
+    @Override
+    public StockReservationResultDTO reserveStock(StockReservationDTO reservation) {
+        throw new ServiceUnavailableException("Product service is currently unavailable - cannot " +
+                reservation.getOperation().name().toLowerCase() + " stock");
+    }
+
+    @Override
+    public List<StockReservationOutcomeDTO> reserveStockBatch(List<StockReservationDTO> reservations) {
+        throw new ServiceUnavailableException("Product service is currently unavailable - cannot apply " +
+                reservations.size() + " stock reservations");
+    }
+}
@@ -0,0 +1,20 @@
+package com.dev.order_service.client.fallback;
+
+import com.dev.order_service.client.ProductClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+
+// Client errors are rethrown as they are; only failed or rejected calls get the fallback
+@Component
+@RequiredArgsConstructor
+public class ProductClientFallbackFactory implements FallbackFactory<ProductClient> {
+
+    private final ProductClientFallback fallback;
+
+    @Override
+    public ProductClient create(Throwable cause) {
+        ClientErrors.rethrowIfClientError(cause);
+        return fallback;
+    }
+}
@@ -0,0 +1,79 @@
+package com.dev.order_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor validationExecutor(
+            @Value("${order.validation.parallel.pool-size:32}") int poolSize,
+            @Value("${order.validation.parallel.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-validation-");
+        executor.setTaskDecorator(requestAttributesDecorator());
+        // Under saturation the request thread runs the check itself instead of failing the order
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Runs the blocking half of the async Feign client variants
+    @Bean
+    public ThreadPoolTaskExecutor remoteCallExecutor(
+            @Value("${client.async.pool-size:16}") int poolSize,
+            @Value("${client.async.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-remote-");
+        executor.setTaskDecorator(requestAttributesDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Rebuilds order stats days in parallel; each day holds a database connection, so keep it below the pool size
+    @Bean
+    public ThreadPoolTaskExecutor statsRebuildExecutor(
+            @Value("${order.stats.rebuild.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("order-stats-");
+        return executor;
+    }
+
+    // Declaring validationExecutor makes Boot back off its default executor; keep one for MVC async (streamed responses)
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Worker threads share the caller's request attributes, and with them the request lookup memo
+    private static TaskDecorator requestAttributesDecorator() {
+        return task -> {
+            RequestAttributes callerAttributes = RequestContextHolder.getRequestAttributes();
+            return () -> {
+                RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+                RequestContextHolder.setRequestAttributes(callerAttributes);
+                try {
+                    task.run();
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            };
+        };
+    }
+}
@@ -1,15 +1,19 @@
 package com.dev.order_service.config;
 
+import com.dev.order_service.client.fallback.ClientErrors;
+import feign.Capability;
 import feign.Logger;
 import feign.RequestInterceptor;
 import feign.Response;
 import feign.codec.ErrorDecoder;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,6 +22,8 @@ import java.time.Duration;
 
 @Configuration
 @Slf4j
+// Here rather than on the application class so sliced tests (@DataJpaTest) do not build the clients
+@EnableFeignClients(basePackages = "com.dev.order_service.client")
 public class FeignConfig {
 
     @Bean
@@ -30,6 +36,11 @@ public class FeignConfig {
         return new FeignErrorDecoder();
     }
 
+    @Bean
+    public Capability feignMetricsCapability(MeterRegistry meterRegistry) {
+        return new FeignMetricsCapability(meterRegistry);
+    }
+
     @Bean
     public RequestInterceptor requestInterceptor() {
         return requestTemplate -> {
@@ -50,6 +61,8 @@ public class FeignConfig {
                         .permittedNumberOfCallsInHalfOpenState(3)
                         .slowCallRateThreshold(50)
                         .slowCallDurationThreshold(Duration.ofSeconds(2))
+                        // A 4xx means the downstream is up and answering; it counts neither way
+                        .ignoreException(ClientErrors::isClientError)
                         .build())
                 .timeLimiterConfig(TimeLimiterConfig.custom()
                         .timeoutDuration(Duration.ofSeconds(4))
@@ -0,0 +1,53 @@
+package com.dev.order_service.config;
+
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every Feign call at the transport, tagged by client, interface method and outcome
+ * (SUCCESS, CLIENT_ERROR, SERVER_ERROR, ... or IO_ERROR when no response arrived). Spring Cloud
+ * OpenFeign applies Capability beans to every client.
+ */
+public class FeignMetricsCapability implements Capability {
+
+    private final MeterRegistry meterRegistry;
+
+    public FeignMetricsCapability(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            long start = System.nanoTime();
+            String outcome = "IO_ERROR";
+            try {
+                Response response = client.execute(request, options);
+                outcome = Outcome.forStatus(response.status()).name();
+                return response;
+            } finally {
+                timer(request, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+
+    private Timer timer(Request request, String outcome) {
+        MethodMetadata metadata = request.requestTemplate().methodMetadata();
+        return Timer.builder("feign.client.requests")
+                .description("Feign client calls, by client, method and outcome")
+                .tag("client", request.requestTemplate().feignTarget() != null
+                        ? request.requestTemplate().feignTarget().name() : "unknown")
+                .tag("method", metadata != null ? metadata.configKey() : request.httpMethod().name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.dev.order_service.config;
+
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Transport used by the Feign clients, selected with {@code client.transport.type}:
+ * <ul>
+ *     <li>{@code hc5} (default) - Apache HttpClient 5 with a bounded keep-alive connection pool</li>
+ *     <li>{@code http2} - JDK HttpClient, multiplexing requests over HTTP/2 where the server supports it</li>
+ * </ul>
+ * Either way requests are capped per route by {@link RouteConcurrencyLimitingClient}.
+ */
+@Configuration
+public class FeignTransportConfig {
+
+    @Value("${client.transport.max-concurrent-requests-per-route:50}")
+    private int maxConcurrentRequestsPerRoute;
+
+    @Value("${client.transport.acquire-timeout-ms:1000}")
+    private long acquireTimeoutMs;
+
+    @Value("${client.transport.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Bean
+    @ConditionalOnProperty(name = "client.transport.type", havingValue = "hc5", matchIfMissing = true)
+    public CloseableHttpClient feignTransportHttpClient(
+            @Value("${client.transport.max-connections:200}") int maxConnections,
+            @Value("${client.transport.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${client.transport.idle-timeout-ms:30000}") long idleTimeoutMs) {
+        return pooledHttpClient(maxConnections, maxConnectionsPerRoute, connectTimeoutMs, idleTimeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "client.transport.type", havingValue = "hc5", matchIfMissing = true)
+    public Client feignTransportClient(CloseableHttpClient feignTransportHttpClient) {
+        return new RouteConcurrencyLimitingClient(new ApacheHttp5Client(feignTransportHttpClient),
+                maxConcurrentRequestsPerRoute, acquireTimeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "client.transport.type", havingValue = "http2")
+    public Client http2FeignTransportClient() {
+        return new RouteConcurrencyLimitingClient(new Http2Client(http2HttpClient(connectTimeoutMs)),
+                maxConcurrentRequestsPerRoute, acquireTimeoutMs);
+    }
+
+    static CloseableHttpClient pooledHttpClient(int maxConnections, int maxConnectionsPerRoute,
+                                                long connectTimeoutMs, long idleTimeoutMs) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                // Drop pooled connections the server is likely to have closed already
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .evictExpiredConnections()
+                .disableCookieManagement()
+                // The default strategy silently resends on 429/503 after a 1 s pause, POSTs included;
+                // failures are handled by the fallbacks and the stock outbox instead
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    static HttpClient http2HttpClient(long connectTimeoutMs) {
+        // Plain http URLs negotiate h2c via upgrade and fall back to pooled HTTP/1.1 keep-alive
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.dev.order_service.config;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of in-flight requests per route (scheme, host and port) in front of the
+ * underlying transport. A request that cannot get a permit within the acquire timeout fails
+ * as an I/O error, which Feign surfaces as a retryable failure and the circuit breaker counts.
+ */
+public class RouteConcurrencyLimitingClient implements Client {
+
+    private final Client delegate;
+    private final int maxConcurrentRequestsPerRoute;
+    private final long acquireTimeoutMs;
+    private final ConcurrentMap<String, Semaphore> routePermits = new ConcurrentHashMap<>();
+
+    public RouteConcurrencyLimitingClient(Client delegate, int maxConcurrentRequestsPerRoute, long acquireTimeoutMs) {
+        this.delegate = delegate;
+        this.maxConcurrentRequestsPerRoute = maxConcurrentRequestsPerRoute;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String route = route(request.url());
+        Semaphore permits = routePermits.computeIfAbsent(route, key -> new Semaphore(maxConcurrentRequestsPerRoute));
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Too many concurrent requests to " + route);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to " + route, e);
+        }
+
+        try {
+            return delegate.execute(request, options);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static String route(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+}
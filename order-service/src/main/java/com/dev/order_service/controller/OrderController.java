@@ -2,15 +2,27 @@ package com.dev.order_service.controller;
 
 import com.dev.order_service.dto.OrderDTO;
 import com.dev.order_service.dto.OrderConfirmationDTO;
+import com.dev.order_service.dto.OrderPageDTO;
+import com.dev.order_service.dto.OrderSearchResultDTO;
+import com.dev.order_service.enums.OrderStatus;
 import com.dev.order_service.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -24,6 +36,7 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
     private final OrderService orderService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
     @RateLimiter(name = "orderService")
@@ -45,6 +58,51 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrdersByDateRange(startDate, endDate));
     }
 
+    @GetMapping("/date-range/page")
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<OrderPageDTO> getOrdersByDateRangePage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(orderService.getOrdersByDateRangePage(startDate, endDate, cursor, size));
+    }
+
+    // Every filter is optional; sort=orderDate|totalAmount|status|id[,asc|desc], total=true adds a count
+    @GetMapping("/search")
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<OrderSearchResultDTO> searchOrders(
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(defaultValue = "false") boolean total,
+            @PageableDefault(size = 50, sort = "orderDate", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(orderService.searchOrders(customerId, status, startDate, endDate,
+                minAmount, maxAmount, productId, pageable, total));
+    }
+
+    @GetMapping(value = "/date-range/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<StreamingResponseBody> streamOrdersByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        StreamingResponseBody body = outputStream -> orderService.streamOrdersByDateRange(startDate, endDate, order -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(order));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @PostMapping
     @RateLimiter(name = "orderService")
     public ResponseEntity<OrderConfirmationDTO> createOrder(@Valid @RequestBody OrderDTO orderDTO) {
@@ -54,8 +112,17 @@ public class OrderController {
         logger.info("Calling orderService.createOrder method.");
         OrderConfirmationDTO confirmation = orderService.createOrder(orderDTO);
 
-        logger.info("Order created successfully. OrderConfirmationDTO: {}", confirmation);
-        return new ResponseEntity<>(confirmation, HttpStatus.CREATED);
+        logger.info("Order created with status {}. OrderConfirmationDTO: {}", confirmation.getStatus(), confirmation);
+        return new ResponseEntity<>(confirmation, creationStatus(confirmation.getStatus()));
+    }
+
+    // The order is stored either way; the code says whether its stock was deducted, refused or is still to be sent
+    static HttpStatus creationStatus(OrderStatus status) {
+        return switch (status) {
+            case FAILED -> HttpStatus.CONFLICT;
+            case PENDING -> HttpStatus.ACCEPTED;
+            default -> HttpStatus.CREATED;
+        };
     }
 
     @PostMapping("/{id}/cancel")
@@ -0,0 +1,47 @@
+package com.dev.order_service.controller;
+
+import com.dev.order_service.dto.OrderDailyStatsDTO;
+import com.dev.order_service.dto.OrderStatusTotalsDTO;
+import com.dev.order_service.service.OrderStatsService;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/orders/stats")
+@RequiredArgsConstructor
+public class OrderStatsController {
+
+    private final OrderStatsService orderStatsService;
+
+    @GetMapping("/daily")
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<List<OrderDailyStatsDTO>> getDailyStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(orderStatsService.getDailyStats(startDate, endDate));
+    }
+
+    @GetMapping("/totals")
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<List<OrderStatusTotalsDTO>> getTotals(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(orderStatsService.getTotals(startDate, endDate));
+    }
+
+    // Runs in the background; the outcome is logged
+    @PostMapping("/rebuild")
+    @RateLimiter(name = "orderService")
+    public ResponseEntity<Void> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        orderStatsService.startRebuild(startDate, endDate);
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.dev.order_service.dto;
+
+import com.dev.order_service.enums.OrderStatus;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class OrderDailyStatsDTO {
+    private LocalDate date;
+    private OrderStatus status;
+    private Long orderCount;
+    private BigDecimal revenue;
+}
@@ -8,6 +8,7 @@ public class OrderItemDTO {
     private Long id;
     private Long productId;
     private String productName;
+    private String productSku;
     private Integer quantity;
     private BigDecimal unitPrice;
     private BigDecimal subtotal;
@@ -0,0 +1,13 @@
+package com.dev.order_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class OrderPageDTO {
+    private List<OrderDTO> orders = new ArrayList<>();
+    // Opaque cursor for the next page, null on the last page
+    private String nextCursor;
+}
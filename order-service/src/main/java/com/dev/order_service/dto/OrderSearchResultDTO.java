@@ -0,0 +1,16 @@
+package com.dev.order_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class OrderSearchResultDTO {
+    private List<OrderDTO> orders = new ArrayList<>();
+    private int page;
+    private int size;
+    private boolean hasNext;
+    // Only set when the caller asked for a count, since it costs a second query over the whole match
+    private Long totalElements;
+}
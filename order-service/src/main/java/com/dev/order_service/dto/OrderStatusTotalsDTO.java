@@ -0,0 +1,17 @@
+package com.dev.order_service.dto;
+
+import com.dev.order_service.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusTotalsDTO {
+    private OrderStatus status;
+    private Long orderCount;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,10 @@
+package com.dev.order_service.dto;
+
+import lombok.Data;
+
+@Data
+public class StockItemResultDTO {
+    private Long productId;
+    private Integer quantity;
+    private Integer remainingStock;
+}
@@ -0,0 +1,14 @@
+package com.dev.order_service.dto;
+
+import com.dev.order_service.enums.StockOperation;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockReservationDTO {
+    private String idempotencyKey;
+    private StockOperation operation;
+    private List<StockUpdateDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,12 @@
+package com.dev.order_service.dto;
+
+import com.dev.order_service.enums.ReservationOutcome;
+import lombok.Data;
+
+@Data
+public class StockReservationOutcomeDTO {
+    private String idempotencyKey;
+    private ReservationOutcome outcome;
+    private String message;
+    private StockReservationResultDTO result;
+}
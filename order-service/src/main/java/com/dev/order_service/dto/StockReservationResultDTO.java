@@ -0,0 +1,14 @@
+package com.dev.order_service.dto;
+
+import com.dev.order_service.enums.StockOperation;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockReservationResultDTO {
+    private StockOperation operation;
+    private boolean duplicate;
+    private List<StockItemResultDTO> items = new ArrayList<>();
+}
@@ -3,6 +3,7 @@ package com.dev.order_service.entity;
 import com.dev.order_service.enums.OrderStatus;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -19,6 +20,9 @@ public class Order {
     @Column(nullable = false)
     private Long customerId;
 
+    // Snapshot taken at creation time
+    private String customerName;
+
     @Column(nullable = false)
     private LocalDateTime orderDate;
 
@@ -30,6 +34,7 @@ public class Order {
     private BigDecimal totalAmount;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     private List<OrderItem> items = new ArrayList<>();
 
     private String notes;
@@ -0,0 +1,29 @@
+package com.dev.order_service.entity;
+
+import com.dev.order_service.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Running count and revenue of the orders placed on one day that are currently in one status
+@Entity
+@Table(name = "order_daily_stats")
+@IdClass(OrderDailyStatsId.class)
+@Data
+public class OrderDailyStats {
+    @Id
+    private LocalDate statsDate;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private OrderStatus status;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,17 @@
+package com.dev.order_service.entity;
+
+import com.dev.order_service.enums.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderDailyStatsId implements Serializable {
+    private LocalDate statsDate;
+    private OrderStatus status;
+}
@@ -3,6 +3,7 @@ package com.dev.order_service.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "order_items")
@@ -16,9 +17,18 @@ public class OrderItem {
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
 
+    // Partition key of order_items, copied from the order
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime orderDate;
+
     @Column(nullable = false)
     private Long productId;
 
+    // Snapshots taken at creation time
+    private String productName;
+
+    private String productSku;
+
     @Column(nullable = false)
     private Integer quantity;
 
@@ -30,4 +40,11 @@ public class OrderItem {
 
     @Version
     private Long version;
+
+    @PrePersist
+    void copyOrderDate() {
+        if (orderDate == null && order != null) {
+            orderDate = order.getOrderDate();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.dev.order_service.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    FAILED,
+    CANCELLED
+}
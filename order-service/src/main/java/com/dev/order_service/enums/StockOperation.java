@@ -0,0 +1,6 @@
+package com.dev.order_service.enums;
+
+public enum StockOperation {
+    DEDUCT,
+    RESTORE
+}
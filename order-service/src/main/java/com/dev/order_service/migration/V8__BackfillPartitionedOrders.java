@@ -0,0 +1,88 @@
+package com.dev.order_service.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Copies existing orders and their items into the partitioned tables created by V7, one id
+ * range per transaction so no lock is held for longer than a batch. Rows written while it
+ * runs reach the partitioned tables through V7's mirror triggers, and ON CONFLICT DO NOTHING
+ * keeps the copy from overwriting them. Flyway picks this up as a Spring bean.
+ */
+@Component
+public class V8__BackfillPartitionedOrders extends BaseJavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(V8__BackfillPartitionedOrders.class);
+
+    private static final long BATCH_SIZE = 5000;
+
+    private static final String COPY_ORDERS =
+            "INSERT INTO orders_p (id, customer_id, customer_name, order_date, status, total_amount, notes, " +
+            "version, created_at, updated_at) " +
+            "SELECT id, customer_id, customer_name, order_date, status, total_amount, notes, version, " +
+            "created_at, updated_at FROM orders WHERE id BETWEEN ? AND ? " +
+            "ON CONFLICT (id, order_date) DO NOTHING";
+
+    private static final String COPY_ITEMS =
+            "INSERT INTO order_items_p (id, order_id, order_date, product_id, product_name, product_sku, " +
+            "quantity, unit_price, subtotal, version, created_at) " +
+            "SELECT i.id, i.order_id, o.order_date, i.product_id, i.product_name, i.product_sku, i.quantity, " +
+            "i.unit_price, i.subtotal, i.version, i.created_at " +
+            "FROM order_items i JOIN orders o ON o.id = i.order_id WHERE i.order_id BETWEEN ? AND ? " +
+            "ON CONFLICT (id, order_date) DO NOTHING";
+
+    // Each batch commits on its own
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet range = statement.executeQuery("SELECT MIN(id), MAX(id) FROM orders")) {
+            range.next();
+            minId = range.getLong(1);
+            maxId = range.getLong(2);
+            if (range.wasNull()) {
+                logger.info("No orders to copy into the partitioned tables");
+                return;
+            }
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement copyOrders = connection.prepareStatement(COPY_ORDERS);
+             PreparedStatement copyItems = connection.prepareStatement(COPY_ITEMS)) {
+            long copied = 0;
+            for (long from = minId; from <= maxId; from += BATCH_SIZE) {
+                long to = Math.min(from + BATCH_SIZE - 1, maxId);
+                copyOrders.setLong(1, from);
+                copyOrders.setLong(2, to);
+                copied += copyOrders.executeUpdate();
+                copyItems.setLong(1, from);
+                copyItems.setLong(2, to);
+                copyItems.executeUpdate();
+                connection.commit();
+                logger.info("Copied orders up to id {} of {} into the partitioned tables", to, maxId);
+            }
+            logger.info("Copied {} orders into the partitioned tables", copied);
+        } catch (Exception e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.dev.order_service.repository;
+
+import com.dev.order_service.dto.OrderStatusTotalsDTO;
+import com.dev.order_service.entity.OrderDailyStats;
+import com.dev.order_service.entity.OrderDailyStatsId;
+import com.dev.order_service.enums.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface OrderDailyStatsRepository extends JpaRepository<OrderDailyStats, OrderDailyStatsId> {
+
+    // Adjusts an existing rollup row in place; returns 0 when the day has no row for the status yet
+    @Modifying
+    @Query("UPDATE OrderDailyStats s SET s.orderCount = s.orderCount + :count, s.revenue = s.revenue + :revenue " +
+            "WHERE s.statsDate = :date AND s.status = :status")
+    int increment(@Param("date") LocalDate date, @Param("status") OrderStatus status,
+                  @Param("count") long count, @Param("revenue") BigDecimal revenue);
+
+    // Returns 0 when a concurrent transaction created the row first
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_stats (stats_date, status, order_count, revenue) " +
+            "VALUES (:date, :status, :count, :revenue) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("date") LocalDate date, @Param("status") String status,
+                       @Param("count") long count, @Param("revenue") BigDecimal revenue);
+
+    List<OrderDailyStats> findByStatsDateBetweenOrderByStatsDateAscStatusAsc(LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT new com.dev.order_service.dto.OrderStatusTotalsDTO(s.status, SUM(s.orderCount), SUM(s.revenue)) " +
+            "FROM OrderDailyStats s WHERE s.statsDate BETWEEN :startDate AND :endDate GROUP BY s.status")
+    List<OrderStatusTotalsDTO> sumByStatusBetween(@Param("startDate") LocalDate startDate,
+                                                  @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM OrderDailyStats s WHERE s.statsDate = :date")
+    int deleteByStatsDate(@Param("date") LocalDate date);
+}
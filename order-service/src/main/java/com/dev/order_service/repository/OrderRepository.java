@@ -1,39 +1,86 @@
 package com.dev.order_service.repository;
 
+import com.dev.order_service.dto.OrderStatusTotalsDTO;
 import com.dev.order_service.entity.Order;
 import com.dev.order_service.enums.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
 
+    // List queries fetch items in the same statement; paged and streamed queries rely on @BatchSize instead
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCustomerId(Long customerId);
 
+    @EntityGraph(attributePaths = "items")
     List<Order> findByStatus(OrderStatus status);
 
     // Find orders between dates
+    @EntityGraph(attributePaths = "items")
     @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate")
     List<Order> findOrdersBetweenDates(
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    // Keyset page of a date range: orders strictly after (afterDate, afterId) in (order_date, id) order
+    @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate " +
+            "AND (o.orderDate > :afterDate OR (o.orderDate = :afterDate AND o.id > :afterId)) " +
+            "ORDER BY o.orderDate ASC, o.id ASC")
+    List<Order> findOrdersBetweenDatesAfter(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    // Stream a date range through a cursor; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o WHERE o.orderDate BETWEEN :startDate AND :endDate ORDER BY o.orderDate ASC, o.id ASC")
+    Stream<Order> streamOrdersBetweenDates(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+
     // Find orders by customer and status
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCustomerIdAndStatus(Long customerId, OrderStatus status);
 
-    // Find orders containing specific product
-    @Query("SELECT o FROM Order o JOIN o.items i WHERE i.productId = :productId")
+    // Find orders containing specific product, with all of their items
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items " +
+            "WHERE EXISTS (SELECT i FROM OrderItem i WHERE i.order = o AND i.productId = :productId)")
     List<Order> findByProductId(@Param("productId") Long productId);
 
+    // Moves an order on only from the expected status, so concurrent transitions cannot overwrite each other
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.version = o.version + 1 WHERE o.id = :id AND o.status = :expected")
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("expected") OrderStatus expected,
+                              @Param("status") OrderStatus status);
+
     // Count orders by status
     long countByStatus(OrderStatus status);
 
+    // Recomputes the rollup of one time window from the base table (see OrderStatsService.rebuild)
+    @Query("SELECT new com.dev.order_service.dto.OrderStatusTotalsDTO(o.status, COUNT(o), SUM(o.totalAmount)) " +
+            "FROM Order o WHERE o.orderDate >= :start AND o.orderDate < :end GROUP BY o.status")
+    List<OrderStatusTotalsDTO> summarizeByStatusBetween(@Param("start") LocalDateTime start,
+                                                        @Param("end") LocalDateTime end);
+
     // Check if customer has any orders
     boolean existsByCustomerId(Long customerId);
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.dev.order_service.repository;
+
+import com.dev.order_service.entity.StockOutboxEntry;
+import com.dev.order_service.enums.OutboxStatus;
+import com.dev.order_service.enums.StockOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StockOutboxRepository extends JpaRepository<StockOutboxEntry, Long> {
+
+    // Locks due entries; SKIP LOCKED lets several relay instances claim disjoint batches
+    @Query(value = "SELECT * FROM stock_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<StockOutboxEntry> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM stock_outbox WHERE order_id = :orderId AND status = 'PENDING' " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<StockOutboxEntry> findPendingByOrderIdForUpdate(@Param("orderId") Long orderId);
+
+    List<StockOutboxEntry> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+    Optional<StockOutboxEntry> findByOrderIdAndOperation(Long orderId, StockOperation operation);
+
+    // Reads the current status from the database rather than the persistence context
+    @Query("SELECT e.status FROM StockOutboxEntry e WHERE e.id = :id")
+    OutboxStatus findStatusById(@Param("id") Long id);
+
+    // Status changes only apply to entries that are still PENDING, so relay and cancellation cannot overwrite each other
+    @Modifying
+    @Query("UPDATE StockOutboxEntry e SET e.status = :status, e.lastError = :error, e.processedAt = :now " +
+            "WHERE e.id = :id AND e.status = com.dev.order_service.enums.OutboxStatus.PENDING")
+    int completeIfPending(@Param("id") Long id, @Param("status") OutboxStatus status,
+                          @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockOutboxEntry e SET e.nextAttemptAt = :nextAttemptAt, e.lastError = :error " +
+            "WHERE e.id = :id AND e.status = com.dev.order_service.enums.OutboxStatus.PENDING")
+    int rescheduleIfPending(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                            @Param("error") String error);
+}
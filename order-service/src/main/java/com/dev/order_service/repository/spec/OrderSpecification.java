@@ -1,8 +1,11 @@
 package com.dev.order_service.repository.spec;
 
 import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.OrderItem;
 import com.dev.order_service.enums.OrderStatus;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
@@ -71,13 +74,16 @@ public class OrderSpecification {
         };
     }
 
+    // EXISTS rather than a join, so an order with several matching items is still one row (and one page slot)
     public static Specification<Order> hasProductId(Long productId) {
         return (root, query, criteriaBuilder) -> {
             if (productId == null) return null;
-            return criteriaBuilder.equal(
-                    root.join("items").get("productId"),
-                    productId
-            );
+            Subquery<Long> items = query.subquery(Long.class);
+            Root<OrderItem> item = items.from(OrderItem.class);
+            items.select(item.get("id"))
+                    .where(criteriaBuilder.equal(item.get("order"), root),
+                            criteriaBuilder.equal(item.get("productId"), productId));
+            return criteriaBuilder.exists(items);
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.dev.order_service.service;
+
+import com.dev.common.cache.SingleFlight;
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.CustomerDTO;
+import com.dev.order_service.dto.ProductDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes customer and product lookups for the lifetime of the current HTTP request, so the
+ * validation service, the validation aspect and the confirmation builder fetch each id at most
+ * once per request. The memo lives in the request attributes; outside of a request every call
+ * goes straight to the remote client. Across requests, concurrent lookups of the same id share
+ * one remote call.
+ */
+@Component
+public class OrderLookupContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderLookupContext.class);
+
+    private static final String LOOKUPS_ATTRIBUTE = OrderLookupContext.class.getName() + ".LOOKUPS";
+
+    private final CustomerClient customerClient;
+    private final ProductClient productClient;
+    private final Counter avoidedCustomerLookups;
+    private final Counter avoidedProductLookups;
+    private final SingleFlight<Long, CustomerDTO> customerLoads;
+    private final SingleFlight<Long, ProductDTO> productLoads;
+
+    public OrderLookupContext(CustomerClient customerClient, ProductClient productClient, MeterRegistry meterRegistry) {
+        this.customerClient = customerClient;
+        this.productClient = productClient;
+        this.avoidedCustomerLookups = Counter.builder("order.remote.lookups.avoided")
+                .description("Remote lookups answered from the request-scoped lookup context")
+                .tag("type", "customer")
+                .register(meterRegistry);
+        this.avoidedProductLookups = Counter.builder("order.remote.lookups.avoided")
+                .description("Remote lookups answered from the request-scoped lookup context")
+                .tag("type", "product")
+                .register(meterRegistry);
+        this.customerLoads = new SingleFlight<>("customer-lookups", meterRegistry);
+        this.productLoads = new SingleFlight<>("product-lookups", meterRegistry);
+    }
+
+    public CustomerDTO getCustomer(Long customerId) {
+        Lookups lookups = currentLookups();
+        if (lookups == null) {
+            return fetchCustomer(customerId);
+        }
+
+        CustomerDTO customer = lookups.customers.get(customerId);
+        if (customer != null) {
+            logger.debug("Customer {} served from request lookup context", customerId);
+            avoidedCustomerLookups.increment();
+            return customer;
+        }
+
+        customer = fetchCustomer(customerId);
+        lookups.customers.put(customerId, customer);
+        return customer;
+    }
+
+    public ProductDTO getProduct(Long productId) {
+        Lookups lookups = currentLookups();
+        if (lookups == null) {
+            return fetchProduct(productId);
+        }
+
+        ProductDTO product = lookups.products.get(productId);
+        if (product != null) {
+            logger.debug("Product {} served from request lookup context", productId);
+            avoidedProductLookups.increment();
+            return product;
+        }
+
+        product = fetchProduct(productId);
+        lookups.products.put(productId, product);
+        return product;
+    }
+
+    private CustomerDTO fetchCustomer(Long customerId) {
+        return customerLoads.load(customerId, () -> customerClient.getCustomer(customerId));
+    }
+
+    private ProductDTO fetchProduct(Long productId) {
+        return productLoads.load(productId, () -> productClient.getProduct(productId));
+    }
+
+    private Lookups currentLookups() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Object lookups = attributes.getAttribute(LOOKUPS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (lookups == null) {
+            synchronized (attributes) {
+                lookups = attributes.getAttribute(LOOKUPS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (lookups == null) {
+                    lookups = new Lookups();
+                    attributes.setAttribute(LOOKUPS_ATTRIBUTE, lookups, RequestAttributes.SCOPE_REQUEST);
+                }
+            }
+        }
+        return (Lookups) lookups;
+    }
+
+    private static class Lookups {
+        private final Map<Long, CustomerDTO> customers = new ConcurrentHashMap<>();
+        private final Map<Long, ProductDTO> products = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,49 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.exception.OrderValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last order on a page, (order_date, id), encoded as an opaque
+ * URL-safe token so clients cannot depend on its shape.
+ */
+final class OrderPageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime orderDate;
+    private final Long id;
+
+    OrderPageCursor(LocalDateTime orderDate, Long id) {
+        this.orderDate = orderDate;
+        this.id = id;
+    }
+
+    LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = orderDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static OrderPageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new OrderPageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new OrderValidationException("Invalid page cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.dev.order_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Creates the monthly orders and order_items partitions ahead of time, so inserts never land
+ * in the default partitions. Runs at startup and then periodically; creating a partition that
+ * already exists is a no-op.
+ * <p>
+ * Does nothing until the swap in db/next-release has made orders the partitioned table. Before
+ * then nothing reads the partitioned copies, and creating a partition would lock the copy that
+ * every order write is mirrored to. The swap creates the months that began in the meantime.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.partitions.maintenance.enabled:true}")
+    private boolean enabled;
+
+    // Months after the current one that must already have partitions
+    @Value("${order.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${order.partitions.maintenance.interval-ms:21600000}")
+    public void createUpcomingPartitions() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        try {
+            if (!swapped()) {
+                logger.debug("Orders are not partitioned yet, skipping partition maintenance");
+                return;
+            }
+            int orders = createPartitions("orders", currentMonth);
+            int items = createPartitions("order_items", currentMonth);
+            if (orders + items > 0) {
+                logger.info("Created {} orders and {} order_items partitions", orders, items);
+            }
+        } catch (Exception e) {
+            // Partitions exist months ahead, so a missed run is retried long before it matters
+            logger.error("Failed to create upcoming order partitions: {}", e.getMessage());
+        }
+    }
+
+    private boolean swapped() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('orders') AND relkind = 'p')",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private int createPartitions(String table, LocalDate fromMonth) {
+        Integer created = jdbcTemplate.queryForObject("SELECT create_monthly_partitions(?, ?, ?, ?)", Integer.class,
+                table, table, fromMonth, monthsAhead + 1);
+        return created != null ? created : 0;
+    }
+}
@@ -6,19 +6,46 @@ import com.dev.order_service.dto.*;
 import com.dev.order_service.entity.Order;
 import com.dev.order_service.entity.OrderItem;
 import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.enums.StockOperation;
 import com.dev.order_service.exception.OrderNotFoundException;
+import com.dev.order_service.exception.OrderValidationException;
 import com.dev.order_service.repository.OrderRepository;
+import com.dev.order_service.repository.spec.OrderSpecification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,55 +55,215 @@ import org.slf4j.LoggerFactory;
 public class OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    // Keeps the ids query string of a single batch lookup well below URL length limits
+    private static final int LOOKUP_BATCH_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 500;
+    // Search may only sort on columns the orders indexes can serve
+    private static final Set<String> SEARCH_SORT_PROPERTIES = Set.of("orderDate", "totalAmount", "status", "id");
+    // Orders mapped and written per round when streaming; bounds memory regardless of range width
+    private static final int STREAM_CHUNK_SIZE = 200;
+
     private final OrderRepository orderRepository;
     private final CustomerClient customerClient;
     private final ProductClient productClient;
     private final OrderValidationService orderValidationService;
-
-    @Cacheable(value = "orders", key = "#id")
+    private final OrderLookupContext orderLookupContext;
+    private final EntityManager entityManager;
+    private final ThreadPoolTaskExecutor remoteCallExecutor;
+    private final StockOutboxService stockOutboxService;
+    private final OrderStatsService orderStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Deduct stock during the request rather than on the next relay run
+    @Value("${order.outbox.send-inline:true}")
+    private boolean sendStockInline;
+
+    @Cacheable(value = "orders", key = "#id", sync = true)
     public OrderDTO getOrder(Long id) {
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new OrderNotFoundException(id));
-        return convertToDTO(order);
+        return convertToDTOs(List.of(order)).get(0);
     }
 
     public List<OrderDTO> getOrdersByCustomerId(Long customerId) {
-        return orderRepository.findByCustomerId(customerId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findByCustomerId(customerId));
     }
 
     public List<OrderDTO> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return orderRepository.findOrdersBetweenDates(startDate, endDate).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(orderRepository.findOrdersBetweenDates(startDate, endDate));
     }
 
-    @Transactional
-    public OrderConfirmationDTO createOrder(OrderDTO orderDTO) {
-        logger.info("Creating a new order for customer ID: {}", orderDTO.getCustomerId());
+    public OrderPageDTO getOrdersByDateRangePage(LocalDateTime startDate, LocalDateTime endDate, String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        OrderPageCursor position = cursor == null || cursor.isBlank()
+                ? new OrderPageCursor(startDate, 0L)
+                : OrderPageCursor.decode(cursor);
+
+        // Fetch one extra row to learn whether another page follows
+        List<Order> orders = orderRepository.findOrdersBetweenDatesAfter(
+                startDate, endDate, position.getOrderDate(), position.getId(), Limit.of(pageSize + 1));
+        boolean hasNext = orders.size() > pageSize;
+        List<Order> page = hasNext ? orders.subList(0, pageSize) : orders;
+
+        OrderPageDTO result = new OrderPageDTO();
+        result.setOrders(convertToDTOs(page));
+        if (hasNext) {
+            Order last = page.get(page.size() - 1);
+            result.setNextCursor(new OrderPageCursor(last.getOrderDate(), last.getId()).encode());
+        }
+        return result;
+    }
 
-        logger.debug("Validating order DTO: {}", orderDTO);
-        orderValidationService.validateOrder(orderDTO);
+    public OrderSearchResultDTO searchOrders(Long customerId, OrderStatus status, LocalDateTime startDate,
+                                             LocalDateTime endDate, BigDecimal minAmount, BigDecimal maxAmount,
+                                             Long productId, Pageable pageable, boolean includeTotal) {
+        Specification<Order> spec = OrderSpecification
+                .withDynamicQuery(customerId, status, startDate, endDate, minAmount, maxAmount)
+                .and(OrderSpecification.hasProductId(productId));
+        int pageSize = Math.min(Math.max(pageable.getPageSize(), 1), MAX_PAGE_SIZE);
+        Sort sort = searchSort(pageable.getSort());
+        PageRequest request = PageRequest.of(pageable.getPageNumber(), pageSize, sort);
+
+        OrderSearchResultDTO result = new OrderSearchResultDTO();
+        result.setPage(request.getPageNumber());
+        result.setSize(pageSize);
+        List<Order> orders;
+        if (includeTotal) {
+            Page<Order> page = orderRepository.findAll(spec, request);
+            orders = page.getContent();
+            result.setHasNext(page.hasNext());
+            result.setTotalElements(page.getTotalElements());
+        } else {
+            // Without a count, the scroll query reads one extra row to learn whether another page follows.
+            // An offset position resumes after the given row, so page n starts after row n * size - 1.
+            ScrollPosition position = request.getOffset() == 0
+                    ? ScrollPosition.offset()
+                    : ScrollPosition.offset(request.getOffset() - 1);
+            Window<Order> window = orderRepository.findBy(spec, query -> query
+                    .sortBy(sort)
+                    .limit(pageSize)
+                    .scroll(position));
+            orders = window.getContent();
+            result.setHasNext(window.hasNext());
+        }
+        result.setOrders(convertToDTOs(orders));
+        return result;
+    }
 
-        Order order = convertToEntity(orderDTO);
-        order.setStatus(OrderStatus.PENDING);
-        order.setOrderDate(LocalDateTime.now());
+    // Whitelisted sort with id as the final tie-breaker, so pages do not overlap on equal values
+    private Sort searchSort(Sort requested) {
+        Sort sort = requested.isSorted() ? requested : Sort.by(Sort.Direction.DESC, "orderDate");
+        for (Sort.Order order : sort) {
+            if (!SEARCH_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new OrderValidationException("Cannot sort orders by " + order.getProperty() +
+                        "; allowed: " + SEARCH_SORT_PROPERTIES);
+            }
+        }
+        if (sort.getOrderFor("id") == null) {
+            Sort.Direction direction = sort.iterator().next().getDirection();
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        return sort;
+    }
 
-        calculateTotalAmount(order);
+    @Transactional(readOnly = true)
+    public void streamOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate, Consumer<OrderDTO> consumer) {
+        try (Stream<Order> orders = orderRepository.streamOrdersBetweenDates(startDate, endDate)) {
+            List<Order> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            orders.forEach(order -> {
+                chunk.add(order);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    writeChunk(chunk, consumer);
+                }
+            });
+            writeChunk(chunk, consumer);
+        }
+    }
 
-        logger.info("Saving order to the database.");
-        Order savedOrder = orderRepository.save(order);
+    private void writeChunk(List<Order> chunk, Consumer<OrderDTO> consumer) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        convertToDTOs(chunk).forEach(consumer);
+        // Detach written orders (and their items) so the persistence context does not grow with the range
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+    }
 
-        logger.info("Updating product stock for the order.");
-        updateProductStock(savedOrder, true);
+    /**
+     * Creates an order in stages so no database connection is held across a remote call:
+     * remote pre-checks, a short write transaction for the order and its outbox entry, the
+     * stock deduction (confirming or failing the order, or left to the outbox relay when
+     * product-service cannot be reached) and finally the confirmation.
+     */
+    public OrderConfirmationDTO createOrder(OrderDTO orderDTO) {
+        logger.info("Creating a new order for customer ID: {}", orderDTO.getCustomerId());
 
-        OrderConfirmationDTO confirmation = createOrderConfirmation(savedOrder);
+        Order order = timeStage("validate", () -> {
+            logger.debug("Validating order DTO: {}", orderDTO);
+            orderValidationService.validateOrder(orderDTO);
+
+            Order newOrder = convertToEntity(orderDTO);
+            captureNameSnapshots(newOrder);
+            newOrder.setStatus(OrderStatus.PENDING);
+            newOrder.setOrderDate(LocalDateTime.now());
+            calculateTotalAmount(newOrder);
+            return newOrder;
+        });
+
+        Order savedOrder = timeStage("persist", () -> transactionTemplate.execute(status -> {
+            logger.info("Saving order to the database.");
+            Order saved = orderRepository.save(order);
+            stockOutboxService.enqueue(saved, StockOperation.DEDUCT);
+            orderStatsService.recordCreated(saved);
+            return saved;
+        }));
+
+        if (sendStockInline) {
+            timeStage("stock", () -> {
+                try {
+                    OrderStatus status = stockOutboxService.relayOrder(savedOrder.getId());
+                    if (status != null) {
+                        savedOrder.setStatus(status);
+                    }
+                } catch (Exception e) {
+                    // The order and its outbox entry are committed; the relay retries the deduction
+                    logger.warn("Inline stock deduction for order {} failed, leaving it to the relay: {}",
+                            savedOrder.getId(), e.getMessage());
+                }
+                return savedOrder;
+            });
+        }
+
+        OrderConfirmationDTO confirmation = timeStage("confirm", () -> createOrderConfirmation(savedOrder));
         logger.info("Order created successfully with confirmation number: {}", confirmation.getConfirmationNumber());
 
         return confirmation;
     }
 
+    private <T> T timeStage(String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            // Histogram buckets let Prometheus compute percentiles across instances
+            Timer.builder("order.create.stage")
+                    .description("Time spent in each stage of order creation")
+                    .tag("stage", stage)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            logger.debug("createOrder stage {} took {} ms ({})", stage, TimeUnit.NANOSECONDS.toMillis(elapsed), outcome);
+        }
+    }
+
     @Transactional
     @CacheEvict(value = "orders", key = "#id")
     public void cancelOrder(Long id) {
@@ -86,41 +273,56 @@ public class OrderService {
         // Validate order cancellation
         orderValidationService.validateOrderCancellation(order);
 
-        // Restore stock
-        updateProductStock(order, false);
+        // Drop the deduction if it has not been sent yet, otherwise queue a restore
+        stockOutboxService.releaseStock(order);
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
+        orderStatsService.recordTransition(order, previousStatus, OrderStatus.CANCELLED);
     }
 
-    private void updateProductStock(Order order, boolean isDeduct) {
-        order.getItems().forEach(item -> {
-            StockUpdateDTO stockUpdate = new StockUpdateDTO();
-            stockUpdate.setProductId(item.getProductId());
-            stockUpdate.setQuantity(item.getQuantity());
-
-            if (isDeduct) {
-                productClient.deductStock(item.getProductId(), stockUpdate);
-            } else {
-                productClient.restoreStock(item.getProductId(), stockUpdate);
-            }
-        });
-    }
-
-    private void calculateTotalAmount(Order order) {
+    void calculateTotalAmount(Order order) {
+        // The database trigger computes the same subtotal; setting it here keeps the returned entity complete
+        order.getItems().forEach(item ->
+                item.setSubtotal(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()))));
         BigDecimal total = order.getItems().stream()
-                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .map(OrderItem::getSubtotal)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         order.setTotalAmount(total);
     }
 
+    // Validation fetched the customer and products earlier in this request, so these lookups are served from memory
+    private void captureNameSnapshots(Order order) {
+        try {
+            CustomerDTO customer = orderLookupContext.getCustomer(order.getCustomerId());
+            order.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
+        } catch (Exception e) {
+            logger.warn("Could not capture customer name for customer ID {}: {}", order.getCustomerId(), e.getMessage());
+        }
+
+        order.getItems().forEach(item -> {
+            try {
+                ProductDTO product = orderLookupContext.getProduct(item.getProductId());
+                item.setProductName(product.getName());
+                item.setProductSku(product.getSku());
+            } catch (Exception e) {
+                logger.warn("Could not capture product name for product ID {}: {}", item.getProductId(), e.getMessage());
+            }
+        });
+    }
+
     private OrderConfirmationDTO createOrderConfirmation(Order order) {
-        CustomerDTO customer = customerClient.getCustomer(order.getCustomerId());
+        String customerName = order.getCustomerName();
+        if (customerName == null) {
+            CustomerDTO customer = orderLookupContext.getCustomer(order.getCustomerId());
+            customerName = customer.getFirstName() + " " + customer.getLastName();
+        }
 
         return OrderConfirmationDTO.builder()
                 .orderId(order.getId())
                 .customerId(order.getCustomerId())
-                .customerName(customer.getFirstName() + " " + customer.getLastName())
+                .customerName(customerName)
                 .orderDate(order.getOrderDate())
                 .status(order.getStatus())
                 .totalAmount(order.getTotalAmount())
@@ -133,7 +335,74 @@ public class OrderService {
         return "ORD-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
-    private OrderDTO convertToDTO(Order order) {
+    private List<OrderDTO> convertToDTOs(List<Order> orders) {
+        // Customer and product lookups are independent, so every batch of both is in flight at once
+        CompletableFuture<Map<Long, String>> pendingCustomerNames = resolveCustomerNames(orders);
+        CompletableFuture<Map<Long, String>> pendingProductNames = resolveProductNames(orders);
+        Map<Long, String> customerNames = pendingCustomerNames.join();
+        Map<Long, String> productNames = pendingProductNames.join();
+        return orders.stream()
+                .map(order -> convertToDTO(order, customerNames, productNames))
+                .collect(Collectors.toList());
+    }
+
+    // Only orders without a name snapshot (created before snapshots existed) need a remote lookup
+    private CompletableFuture<Map<Long, String>> resolveCustomerNames(List<Order> orders) {
+        List<Long> customerIds = orders.stream()
+                .filter(order -> order.getCustomerName() == null)
+                .map(Order::getCustomerId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<CompletableFuture<List<CustomerDTO>>> batches = new ArrayList<>();
+        for (int from = 0; from < customerIds.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = customerIds.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, customerIds.size()));
+            batches.add(customerClient.getCustomersAsync(batch, remoteCallExecutor).exceptionally(e -> {
+                logger.warn("Failed to resolve names for {} customers: {}", batch.size(), rootMessage(e));
+                return List.of();
+            }));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<Long, String> customerNames = new HashMap<>();
+            batches.forEach(batch -> batch.join().forEach(customer ->
+                    customerNames.put(customer.getId(), customer.getFirstName() + " " + customer.getLastName())));
+            return customerNames;
+        });
+    }
+
+    // Resolves the names of products on items without a snapshot in one batch call per chunk
+    private CompletableFuture<Map<Long, String>> resolveProductNames(List<Order> orders) {
+        List<Long> productIds = orders.stream()
+                .flatMap(order -> order.getItems().stream())
+                .filter(item -> item.getProductName() == null)
+                .map(OrderItem::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<CompletableFuture<List<ProductDTO>>> batches = new ArrayList<>();
+        for (int from = 0; from < productIds.size(); from += LOOKUP_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, productIds.size()));
+            batches.add(productClient.getProductsAsync(batch, remoteCallExecutor).exceptionally(e -> {
+                logger.warn("Failed to resolve names for {} products: {}", batch.size(), rootMessage(e));
+                return List.of();
+            }));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<Long, String> productNames = new HashMap<>();
+            batches.forEach(batch -> batch.join()
+                    .forEach(product -> productNames.put(product.getId(), product.getName())));
+            return productNames;
+        });
+    }
+
+    private static String rootMessage(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
+
+    // Package-private for the JMH benchmarks
+    OrderDTO convertToDTO(Order order, Map<Long, String> customerNames, Map<Long, String> productNames) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setCustomerId(order.getCustomerId());
@@ -144,40 +413,31 @@ public class OrderService {
 
         // Convert order items
         dto.setItems(order.getItems().stream()
-                .map(this::convertToItemDTO)
+                .map(item -> convertToItemDTO(item, productNames))
                 .collect(Collectors.toList()));
-
-        // Get customer name from customer service
-        try {
-            CustomerDTO customer = customerClient.getCustomer(order.getCustomerId());
-            dto.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
-        } catch (Exception e) {
-            dto.setCustomerName("Customer info unavailable");
-        }
+        dto.setCustomerName(order.getCustomerName() != null
+                ? order.getCustomerName()
+                : customerNames.getOrDefault(order.getCustomerId(), "Customer info unavailable"));
 
         return dto;
     }
 
-    private OrderItemDTO convertToItemDTO(OrderItem item) {
+    private OrderItemDTO convertToItemDTO(OrderItem item, Map<Long, String> productNames) {
         OrderItemDTO dto = new OrderItemDTO();
         dto.setId(item.getId());
         dto.setProductId(item.getProductId());
         dto.setQuantity(item.getQuantity());
         dto.setUnitPrice(item.getUnitPrice());
         dto.setSubtotal(item.getSubtotal());
-
-        // Get product name from product service
-        try {
-            ProductDTO product = productClient.getProduct(item.getProductId());
-            dto.setProductName(product.getName());
-        } catch (Exception e) {
-            dto.setProductName("Product info unavailable");
-        }
+        dto.setProductSku(item.getProductSku());
+        dto.setProductName(item.getProductName() != null
+                ? item.getProductName()
+                : productNames.getOrDefault(item.getProductId(), "Product info unavailable"));
 
         return dto;
     }
 
-    private Order convertToEntity(OrderDTO dto) {
+    Order convertToEntity(OrderDTO dto) {
         Order order = new Order();
         order.setCustomerId(dto.getCustomerId());
         order.setNotes(dto.getNotes());
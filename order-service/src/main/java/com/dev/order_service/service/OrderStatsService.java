@@ -0,0 +1,243 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.dto.OrderDailyStatsDTO;
+import com.dev.order_service.dto.OrderStatusTotalsDTO;
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.OrderDailyStats;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.exception.OrderValidationException;
+import com.dev.order_service.repository.OrderDailyStatsRepository;
+import com.dev.order_service.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains order_daily_stats, the count and revenue of orders per order day and current
+ * status, so dashboards read a handful of rollup rows instead of scanning orders. Every
+ * status change moves the order from one rollup row to another inside the transaction that
+ * changes the status; {@link #rebuild} recomputes days from the orders table.
+ * <p>
+ * Within a transaction the changes are summed per day and status and written just before it
+ * commits, one statement per row in day and status order. Rows are therefore locked only for
+ * the commit and always in the same order, so transactions touching several rows cannot deadlock.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatsService.class);
+
+    // Bounds the range of a single report request
+    private static final long MAX_RANGE_DAYS = 3660;
+    // A rebuild rewrites every day it covers; a year at a time keeps a run to minutes
+    private static final long MAX_REBUILD_DAYS = 366;
+
+    private final OrderDailyStatsRepository orderDailyStatsRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor statsRebuildExecutor;
+
+    // One rebuild at a time, so repeated requests cannot pile days up on the rebuild executor
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+
+    // Must run inside the transaction that writes the order
+    public void recordCreated(Order order) {
+        record(order, order.getStatus(), 1);
+    }
+
+    // Must run inside the transaction that moves the order from one status to the other
+    public void recordTransition(Order order, OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        record(order, from, -1);
+        record(order, to, 1);
+    }
+
+    private void record(Order order, OrderStatus status, long sign) {
+        StatsKey key = new StatsKey(order.getOrderDate().toLocalDate(), status);
+        BigDecimal revenue = order.getTotalAmount().multiply(BigDecimal.valueOf(sign));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(key, new Delta(sign, revenue));
+            return;
+        }
+        pendingDeltas().merge(key, new Delta(sign, revenue), Delta::plus);
+    }
+
+    // Deltas of the current transaction; synchronizations, unlike bound resources, are suspended with it
+    private Map<StatsKey, Delta> pendingDeltas() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas pending && pending.owner() == this) {
+                return pending.deltas;
+            }
+        }
+        PendingDeltas pending = new PendingDeltas();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending.deltas;
+    }
+
+    private void apply(StatsKey key, Delta delta) {
+        LocalDate day = key.day();
+        OrderStatus status = key.status();
+        // Update first: after the first order of the day the row exists, and that is a single statement
+        if (orderDailyStatsRepository.increment(day, status, delta.count(), delta.revenue()) == 0
+                && orderDailyStatsRepository.insertIfAbsent(day, status.name(), delta.count(), delta.revenue()) == 0) {
+            orderDailyStatsRepository.increment(day, status, delta.count(), delta.revenue());
+        }
+    }
+
+    public List<OrderDailyStatsDTO> getDailyStats(LocalDate startDate, LocalDate endDate) {
+        checkRange(startDate, endDate);
+        return orderDailyStatsRepository.findByStatsDateBetweenOrderByStatsDateAscStatusAsc(startDate, endDate)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    public List<OrderStatusTotalsDTO> getTotals(LocalDate startDate, LocalDate endDate) {
+        checkRange(startDate, endDate);
+        return orderDailyStatsRepository.sumByStatusBetween(startDate, endDate);
+    }
+
+    /**
+     * Recomputes the rollups of every day in the range from the orders table, one day per
+     * transaction and several days at a time. Meant for repair and backfill; a status change
+     * committed on a day while that day is being rebuilt may be counted twice or not at all,
+     * so run it for past days or when traffic is quiet.
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        return startRebuild(startDate, endDate).join();
+    }
+
+    /**
+     * Starts a {@link #rebuild} without waiting for it and completes with the number of days
+     * rebuilt. Rejected while another rebuild is still running.
+     */
+    public CompletableFuture<Integer> startRebuild(LocalDate startDate, LocalDate endDate) {
+        checkRange(startDate, endDate);
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_REBUILD_DAYS) {
+            throw new OrderValidationException("A rebuild may span at most " + MAX_REBUILD_DAYS + " days");
+        }
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            throw new OrderValidationException("An order stats rebuild is already running");
+        }
+
+        List<CompletableFuture<Void>> days = new ArrayList<>();
+        try {
+            for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+                LocalDate current = day;
+                days.add(CompletableFuture.runAsync(() -> rebuildDay(current), statsRebuildExecutor));
+            }
+        } catch (RuntimeException e) {
+            rebuildRunning.set(false);
+            throw e;
+        }
+        return CompletableFuture.allOf(days.toArray(CompletableFuture[]::new))
+                .whenComplete((done, failure) -> {
+                    rebuildRunning.set(false);
+                    if (failure != null) {
+                        logger.error("Order stats rebuild from {} to {} failed", startDate, endDate, failure);
+                    } else {
+                        logger.info("Rebuilt order stats for {} days from {} to {}", days.size(), startDate, endDate);
+                    }
+                })
+                .thenApply(done -> days.size());
+    }
+
+    // Off by default; e.g. "0 30 2 * * *" reconciles yesterday every night
+    @Scheduled(cron = "${order.stats.rebuild.cron:-}")
+    public void rebuildYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        rebuild(yesterday, yesterday);
+    }
+
+    private void rebuildDay(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            orderDailyStatsRepository.deleteByStatsDate(day);
+            List<OrderDailyStats> rows = orderRepository
+                    .summarizeByStatusBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay())
+                    .stream()
+                    .map(totals -> {
+                        OrderDailyStats row = new OrderDailyStats();
+                        row.setStatsDate(day);
+                        row.setStatus(totals.getStatus());
+                        row.setOrderCount(totals.getOrderCount());
+                        row.setRevenue(totals.getRevenue());
+                        return row;
+                    })
+                    .collect(Collectors.toList());
+            orderDailyStatsRepository.saveAll(rows);
+        });
+    }
+
+    private void checkRange(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new OrderValidationException("End date " + endDate + " is before start date " + startDate);
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_RANGE_DAYS) {
+            throw new OrderValidationException("Date range may span at most " + MAX_RANGE_DAYS + " days");
+        }
+    }
+
+    private class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<StatsKey, Delta> deltas = new TreeMap<>(StatsKey.ORDER);
+
+        OrderStatsService owner() {
+            return OrderStatsService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            deltas.forEach((key, delta) -> {
+                if (!delta.isZero()) {
+                    apply(key, delta);
+                }
+            });
+        }
+    }
+
+    private record StatsKey(LocalDate day, OrderStatus status) {
+        // The order rows are locked in; the same for every transaction
+        static final Comparator<StatsKey> ORDER = Comparator.comparing(StatsKey::day).thenComparing(StatsKey::status);
+    }
+
+    private record Delta(long count, BigDecimal revenue) {
+        Delta plus(Delta other) {
+            return new Delta(count + other.count, revenue.add(other.revenue));
+        }
+
+        // Moves that cancel out within the transaction leave the row untouched
+        boolean isZero() {
+            return count == 0 && revenue.signum() == 0;
+        }
+    }
+
+    private OrderDailyStatsDTO convertToDTO(OrderDailyStats stats) {
+        OrderDailyStatsDTO dto = new OrderDailyStatsDTO();
+        dto.setDate(stats.getStatsDate());
+        dto.setStatus(stats.getStatus());
+        dto.setOrderCount(stats.getOrderCount());
+        dto.setRevenue(stats.getRevenue());
+        return dto;
+    }
+}
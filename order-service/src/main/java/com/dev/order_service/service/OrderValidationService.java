@@ -1,9 +1,8 @@
 package com.dev.order_service.service;
 
-import com.dev.order_service.client.CustomerClient;
-import com.dev.order_service.client.ProductClient;
 import com.dev.order_service.dto.CustomerDTO;
 import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
 import com.dev.order_service.dto.ProductDTO;
 import com.dev.order_service.entity.Order;
 import com.dev.order_service.enums.OrderStatus;
@@ -11,9 +10,17 @@ import com.dev.order_service.exception.OrderValidationException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
 
 @Service
 @RequiredArgsConstructor
@@ -21,22 +28,29 @@ public class OrderValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderValidationService.class);
 
-    private final CustomerClient customerClient;
-    private final ProductClient productClient;
+    private final OrderLookupContext orderLookupContext;
+    private final ThreadPoolTaskExecutor validationExecutor;
+
+    @Value("${order.validation.parallel.enabled:false}")
+    private boolean parallelValidation;
 
     public void validateOrder(OrderDTO orderDTO) {
         logger.info("Starting validation for order with customer ID: {}", orderDTO.getCustomerId());
-        validateCustomer(orderDTO.getCustomerId());
-        validateOrderItems(orderDTO);
+        if (parallelValidation) {
+            validateRemotelyInParallel(orderDTO);
+        } else {
+            validateCustomer(orderDTO.getCustomerId());
+            validateOrderItems(orderDTO);
+        }
         validateTotalAmount(orderDTO);
         logger.info("Order validation completed successfully for customer ID: {}", orderDTO.getCustomerId());
     }
 
     public void validateOrderCancellation(Order order) {
         logger.info("Validating order cancellation for order ID: {}", order.getId());
-        if (order.getStatus() != OrderStatus.PENDING) {
-            logger.error("Order cancellation failed. Order ID: {} is not in PENDING status", order.getId());
-            throw new OrderValidationException("Only PENDING orders can be cancelled");
+        if (order.getStatus() != OrderStatus.PENDING && order.getStatus() != OrderStatus.CONFIRMED) {
+            logger.error("Order cancellation failed. Order ID: {} is not in PENDING or CONFIRMED status", order.getId());
+            throw new OrderValidationException("Only PENDING or CONFIRMED orders can be cancelled");
         }
         logger.info("Order cancellation validation passed for order ID: {}", order.getId());
     }
@@ -44,7 +58,7 @@ public class OrderValidationService {
     private void validateCustomer(Long customerId) {
         logger.info("Validating customer with ID: {}", customerId);
         try {
-            CustomerDTO customer = customerClient.getCustomer(customerId);
+            CustomerDTO customer = orderLookupContext.getCustomer(customerId);
             if (!customer.getActive()) {
                 logger.error("Customer with ID: {} is not active", customerId);
                 throw new OrderValidationException("Customer account is not active");
@@ -57,46 +71,92 @@ public class OrderValidationService {
     }
 
     private void validateOrderItems(OrderDTO orderDTO) {
+        validateItemsPresent(orderDTO);
+        orderDTO.getItems().forEach(item -> {
+            validateItemFields(item);
+            validateProductStock(item);
+        });
+    }
+
+    /**
+     * Runs the cheap local item checks first, then fans the customer check and every product/stock
+     * check out on the validation executor. The first failing check wins: its exception is rethrown
+     * unchanged and all checks still in flight are cancelled.
+     */
+    private void validateRemotelyInParallel(OrderDTO orderDTO) {
+        validateItemsPresent(orderDTO);
+        orderDTO.getItems().forEach(this::validateItemFields);
+
+        List<Runnable> checks = new ArrayList<>();
+        checks.add(() -> validateCustomer(orderDTO.getCustomerId()));
+        orderDTO.getItems().forEach(item -> checks.add(() -> validateProductStock(item)));
+        logger.debug("Running {} remote validation checks in parallel", checks.size());
+
+        CompletionService<Void> completionService =
+                new ExecutorCompletionService<>(validationExecutor.getThreadPoolExecutor());
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            checks.forEach(check -> futures.add(completionService.submit(check, null)));
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new OrderValidationException("Order validation failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderValidationException("Order validation was interrupted", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void validateItemsPresent(OrderDTO orderDTO) {
         logger.info("Validating items for order with customer ID: {}", orderDTO.getCustomerId());
         if (orderDTO.getItems() == null || orderDTO.getItems().isEmpty()) {
             logger.error("Order validation failed: No items in the order");
             throw new OrderValidationException("Order must contain at least one item");
         }
+    }
 
-        orderDTO.getItems().forEach(item -> {
-            logger.debug("Validating item with product ID: {}", item.getProductId());
+    private void validateItemFields(OrderItemDTO item) {
+        logger.debug("Validating item with product ID: {}", item.getProductId());
 
-            if (item.getQuantity() <= 0) {
-                logger.error("Item validation failed: Quantity for product ID {} is not greater than zero", item.getProductId());
-                throw new OrderValidationException("Item quantity must be greater than zero");
-            }
+        if (item.getQuantity() <= 0) {
+            logger.error("Item validation failed: Quantity for product ID {} is not greater than zero", item.getProductId());
+            throw new OrderValidationException("Item quantity must be greater than zero");
+        }
 
-            if (item.getUnitPrice().compareTo(BigDecimal.ZERO) <= 0) {
-                logger.error("Item validation failed: Unit price for product ID {} is not greater than zero", item.getProductId());
-                throw new OrderValidationException("Item unit price must be greater than zero");
-            }
+        if (item.getUnitPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            logger.error("Item validation failed: Unit price for product ID {} is not greater than zero", item.getProductId());
+            throw new OrderValidationException("Item unit price must be greater than zero");
+        }
+    }
 
-            try {
-                ProductDTO product = productClient.getProduct(item.getProductId());
-                if (product.getStockQuantity() < item.getQuantity()) {
-                    logger.error("Item validation failed: Insufficient stock for product {}. Available: {}, Requested: {}",
-                            product.getName(), product.getStockQuantity(), item.getQuantity());
-                    throw new OrderValidationException(
-                            String.format("Insufficient stock for product %s. Available: %d, Requested: %d",
-                                    product.getName(),
-                                    product.getStockQuantity(),
-                                    item.getQuantity())
-                    );
-                }
-                logger.info("Item validation passed for product ID: {}", item.getProductId());
-            } catch (Exception e) {
-                logger.error("Failed to validate product with ID: {}. Error: {}", item.getProductId(), e.getMessage(), e);
-                throw new OrderValidationException("Failed to validate product: " + e.getMessage());
+    private void validateProductStock(OrderItemDTO item) {
+        try {
+            ProductDTO product = orderLookupContext.getProduct(item.getProductId());
+            if (product.getStockQuantity() < item.getQuantity()) {
+                logger.error("Item validation failed: Insufficient stock for product {}. Available: {}, Requested: {}",
+                        product.getName(), product.getStockQuantity(), item.getQuantity());
+                throw new OrderValidationException(
+                        String.format("Insufficient stock for product %s. Available: %d, Requested: %d",
+                                product.getName(),
+                                product.getStockQuantity(),
+                                item.getQuantity())
+                );
             }
-        });
+            logger.info("Item validation passed for product ID: {}", item.getProductId());
+        } catch (Exception e) {
+            logger.error("Failed to validate product with ID: {}. Error: {}", item.getProductId(), e.getMessage(), e);
+            throw new OrderValidationException("Failed to validate product: " + e.getMessage());
+        }
     }
 
-    private void validateTotalAmount(OrderDTO orderDTO) {
+    // Package-private for the JMH benchmarks
+    void validateTotalAmount(OrderDTO orderDTO) {
         logger.info("Validating total amount for order with customer ID: {}", orderDTO.getCustomerId());
         BigDecimal calculatedTotal = orderDTO.getItems().stream()
                 .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
@@ -0,0 +1,254 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.StockReservationDTO;
+import com.dev.order_service.dto.StockReservationOutcomeDTO;
+import com.dev.order_service.dto.StockUpdateDTO;
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.StockOutboxEntry;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.enums.OutboxStatus;
+import com.dev.order_service.enums.ReservationOutcome;
+import com.dev.order_service.enums.StockOperation;
+import com.dev.order_service.repository.OrderRepository;
+import com.dev.order_service.repository.StockOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox for stock mutations. Orders write their DEDUCT (or, on cancellation,
+ * RESTORE) entry in their own transaction; a scheduled relay sends due entries to
+ * product-service in batches and moves DEDUCT orders from PENDING to CONFIRMED or FAILED.
+ * <p>
+ * Entries are claimed with a lease in a short transaction and sent with no transaction open,
+ * so product-service latency never holds an order-DB connection. An entry whose lease runs
+ * out (crashed or slow relay) is sent again; its idempotency key makes the resend harmless.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockOutboxService.class);
+
+    private final StockOutboxRepository stockOutboxRepository;
+    private final OrderRepository orderRepository;
+    private final ProductClient productClient;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final OrderStatsService orderStatsService;
+
+    @Value("${order.outbox.relay.batch-size:50}")
+    private int batchSize;
+
+    @Value("${order.outbox.relay.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${order.outbox.relay.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    // Entries still failing after this many attempts are logged as errors; they keep being retried
+    @Value("${order.outbox.relay.alert-after-attempts:10}")
+    private int alertAfterAttempts;
+
+    // Must run inside the transaction that writes the order
+    public void enqueue(Order order, StockOperation operation) {
+        LocalDateTime now = LocalDateTime.now();
+        StockOutboxEntry entry = new StockOutboxEntry();
+        entry.setOrderId(order.getId());
+        entry.setOperation(operation);
+        entry.setIdempotencyKey("order-" + order.getId() + "-" + operation.name().toLowerCase());
+        entry.setStatus(OutboxStatus.PENDING);
+        entry.setNextAttemptAt(now);
+        entry.setCreatedAt(now);
+        stockOutboxRepository.save(entry);
+        logger.debug("Queued stock {} for order {}", operation, order.getId());
+    }
+
+    // Must run inside the transaction that cancels the order
+    public void releaseStock(Order order) {
+        StockOutboxEntry deduct = stockOutboxRepository.findByOrderIdAndOperation(order.getId(), StockOperation.DEDUCT)
+                .orElse(null);
+        if (deduct == null) {
+            // Created before the outbox existed: stock was deducted synchronously
+            enqueue(order, StockOperation.RESTORE);
+            return;
+        }
+
+        if (stockOutboxRepository.completeIfPending(deduct.getId(), OutboxStatus.CANCELLED,
+                "Order cancelled before stock was deducted", LocalDateTime.now()) == 1) {
+            // If a relay already has it in flight, recordOutcomes queues the restore once it lands
+            logger.info("Cancelled pending stock deduction for order {}", order.getId());
+            return;
+        }
+        if (stockOutboxRepository.findStatusById(deduct.getId()) == OutboxStatus.SENT) {
+            enqueue(order, StockOperation.RESTORE);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay.interval-ms:500}")
+    public void relayPending() {
+        // Keep draining while batches come back full
+        while (relayBatch() == batchSize) {
+            logger.debug("Stock outbox batch full, relaying next batch");
+        }
+    }
+
+    // Returns the number of entries sent, or 0 when the batch could not be delivered
+    int relayBatch() {
+        List<StockReservationDTO> reservations = transactionTemplate.execute(status ->
+                claim(stockOutboxRepository.findDueForUpdate(LocalDateTime.now(), batchSize)));
+        return deliver(reservations) != null ? reservations.size() : 0;
+    }
+
+    /**
+     * Sends the pending stock mutation of one order right away instead of waiting for the next
+     * relay run. Returns the order's new status, or null when it is unchanged (nothing pending,
+     * claimed elsewhere or not delivered), in which case the scheduled relay takes over.
+     */
+    public OrderStatus relayOrder(Long orderId) {
+        List<StockReservationDTO> reservations = transactionTemplate.execute(status ->
+                claim(stockOutboxRepository.findPendingByOrderIdForUpdate(orderId)));
+        Map<Long, OrderStatus> changedOrders = deliver(reservations);
+        return changedOrders != null ? changedOrders.get(orderId) : null;
+    }
+
+    // Sends claimed reservations; returns the orders whose status changed, or null when nothing was delivered
+    private Map<Long, OrderStatus> deliver(List<StockReservationDTO> reservations) {
+        if (reservations == null || reservations.isEmpty()) {
+            return null;
+        }
+
+        List<StockReservationOutcomeDTO> outcomes;
+        try {
+            outcomes = productClient.reserveStockBatch(reservations);
+        } catch (Exception e) {
+            logger.warn("Failed to relay {} stock reservations: {}", reservations.size(), e.getMessage());
+            Set<String> keys = reservations.stream()
+                    .map(StockReservationDTO::getIdempotencyKey)
+                    .collect(Collectors.toSet());
+            transactionTemplate.executeWithoutResult(status -> reschedule(keys, e.getMessage()));
+            return null;
+        }
+
+        Map<Long, OrderStatus> changedOrders = transactionTemplate.execute(status -> recordOutcomes(outcomes));
+        Cache orderCache = cacheManager.getCache("orders");
+        if (orderCache != null && changedOrders != null) {
+            changedOrders.keySet().forEach(orderCache::evict);
+        }
+        return changedOrders;
+    }
+
+    private List<StockReservationDTO> claim(List<StockOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Order> orders = orderRepository.findAllById(entries.stream()
+                        .map(StockOutboxEntry::getOrderId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+
+        List<StockReservationDTO> reservations = new ArrayList<>();
+        for (StockOutboxEntry entry : entries) {
+            // The lease keeps other relays off the entry while it is in flight
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setNextAttemptAt(now.plus(Duration.ofMillis(leaseMs)));
+
+            StockReservationDTO reservation = new StockReservationDTO();
+            reservation.setIdempotencyKey(entry.getIdempotencyKey());
+            reservation.setOperation(entry.getOperation());
+            reservation.setItems(orders.get(entry.getOrderId()).getItems().stream()
+                    .map(item -> {
+                        StockUpdateDTO stockUpdate = new StockUpdateDTO();
+                        stockUpdate.setProductId(item.getProductId());
+                        stockUpdate.setQuantity(item.getQuantity());
+                        return stockUpdate;
+                    })
+                    .collect(Collectors.toList()));
+            reservations.add(reservation);
+        }
+        return reservations;
+    }
+
+    private Map<Long, OrderStatus> recordOutcomes(List<StockReservationOutcomeDTO> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, StockOutboxEntry> entries = stockOutboxRepository.findByIdempotencyKeyIn(outcomes.stream()
+                        .map(StockReservationOutcomeDTO::getIdempotencyKey)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(StockOutboxEntry::getIdempotencyKey, Function.identity()));
+
+        Map<Long, OrderStatus> changedOrders = new HashMap<>();
+        for (StockReservationOutcomeDTO outcome : outcomes) {
+            StockOutboxEntry entry = entries.get(outcome.getIdempotencyKey());
+            if (entry == null) {
+                logger.warn("Ignoring stock reservation outcome for unknown key {}", outcome.getIdempotencyKey());
+                continue;
+            }
+            boolean deduct = entry.getOperation() == StockOperation.DEDUCT;
+
+            if (outcome.getOutcome() == ReservationOutcome.REJECTED) {
+                if (stockOutboxRepository.completeIfPending(entry.getId(), OutboxStatus.FAILED, outcome.getMessage(), now) == 1) {
+                    if (deduct && orderRepository.updateStatusIfCurrent(entry.getOrderId(), OrderStatus.PENDING, OrderStatus.FAILED) == 1) {
+                        changedOrders.put(entry.getOrderId(), OrderStatus.FAILED);
+                        recordTransition(entry.getOrderId(), OrderStatus.FAILED);
+                    }
+                    if (!deduct) {
+                        logger.error("Stock restore for order {} was rejected and needs manual repair: {}",
+                                entry.getOrderId(), outcome.getMessage());
+                    }
+                }
+                continue;
+            }
+
+            if (stockOutboxRepository.completeIfPending(entry.getId(), OutboxStatus.SENT, null, now) == 1) {
+                if (deduct && orderRepository.updateStatusIfCurrent(entry.getOrderId(), OrderStatus.PENDING, OrderStatus.CONFIRMED) == 1) {
+                    changedOrders.put(entry.getOrderId(), OrderStatus.CONFIRMED);
+                    recordTransition(entry.getOrderId(), OrderStatus.CONFIRMED);
+                }
+            } else if (deduct && stockOutboxRepository.findStatusById(entry.getId()) == OutboxStatus.CANCELLED) {
+                // The order was cancelled while its deduction was in flight; give the stock back
+                orderRepository.findById(entry.getOrderId()).ifPresent(order -> enqueue(order, StockOperation.RESTORE));
+            }
+        }
+        return changedOrders;
+    }
+
+    // Order date and amount never change, so reading them after the status update is safe
+    private void recordTransition(Long orderId, OrderStatus status) {
+        orderRepository.findById(orderId)
+                .ifPresent(order -> orderStatsService.recordTransition(order, OrderStatus.PENDING, status));
+    }
+
+    private void reschedule(Set<String> keys, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StockOutboxEntry entry : stockOutboxRepository.findByIdempotencyKeyIn(keys)) {
+            // Exponential backoff from one second, capped
+            long backoffMs = Math.min(maxBackoffMs, 1000L << Math.min(entry.getAttempts(), 20));
+            stockOutboxRepository.rescheduleIfPending(entry.getId(), now.plus(Duration.ofMillis(backoffMs)), error);
+            if (entry.getAttempts() >= alertAfterAttempts) {
+                logger.error("Stock {} for order {} still undelivered after {} attempts: {}",
+                        entry.getOperation(), entry.getOrderId(), entry.getAttempts(), error);
+            }
+        }
+    }
+}
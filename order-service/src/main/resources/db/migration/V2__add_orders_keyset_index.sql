@@ -0,0 +1,5 @@
+-- Keyset pagination over date ranges orders by (order_date, id); the composite
+-- index serves both that and plain order_date range scans
+CREATE INDEX idx_orders_date_id ON orders(order_date, id);
+
+DROP INDEX idx_orders_date;
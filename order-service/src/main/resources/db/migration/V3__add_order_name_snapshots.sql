@@ -0,0 +1,7 @@
+-- Names captured when the order is created, so order reads no longer need
+-- customer-service or product-service. Rows created before this migration keep
+-- NULL here and are resolved remotely on read.
+ALTER TABLE orders ADD COLUMN customer_name VARCHAR(255);
+
+ALTER TABLE order_items ADD COLUMN product_name VARCHAR(255);
+ALTER TABLE order_items ADD COLUMN product_sku VARCHAR(50);
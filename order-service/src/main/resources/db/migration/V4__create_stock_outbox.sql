@@ -0,0 +1,19 @@
+-- Stock mutations written in the same transaction as the order and relayed to
+-- product-service in the background. Items are read from order_items when sent.
+CREATE TABLE stock_outbox (
+                              id BIGSERIAL PRIMARY KEY,
+                              order_id BIGINT NOT NULL,
+                              operation VARCHAR(20) NOT NULL,
+                              idempotency_key VARCHAR(100) NOT NULL UNIQUE,
+                              status VARCHAR(20) NOT NULL,
+                              attempts INTEGER NOT NULL DEFAULT 0,
+                              next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                              last_error TEXT,
+                              created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                              processed_at TIMESTAMP,
+                              CONSTRAINT fk_stock_outbox_order FOREIGN KEY (order_id) REFERENCES orders(id)
+);
+
+-- The relay only ever scans due PENDING rows
+CREATE INDEX idx_stock_outbox_due ON stock_outbox(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_stock_outbox_order ON stock_outbox(order_id);
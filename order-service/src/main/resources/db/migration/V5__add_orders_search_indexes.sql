@@ -0,0 +1,8 @@
+-- Order search filters by customer or status and sorts by (order_date, id) by default;
+-- each composite index serves the filter, the date range and the sort in one scan
+CREATE INDEX idx_orders_customer_date ON orders(customer_id, order_date, id);
+CREATE INDEX idx_orders_status_date ON orders(status, order_date, id);
+
+-- Both single-column indexes are prefixes of the composites above
+DROP INDEX idx_orders_customer;
+DROP INDEX idx_orders_status;
@@ -0,0 +1,15 @@
+-- Count and revenue of orders per order day and current status, maintained in the
+-- transactions that create orders or change their status
+CREATE TABLE order_daily_stats (
+                                   stats_date DATE NOT NULL,
+                                   status VARCHAR(20) NOT NULL,
+                                   order_count BIGINT NOT NULL,
+                                   revenue DECIMAL(14,2) NOT NULL,
+                                   PRIMARY KEY (stats_date, status)
+);
+
+-- Start from the orders already in the table
+INSERT INTO order_daily_stats (stats_date, status, order_count, revenue)
+SELECT CAST(order_date AS DATE), status, COUNT(*), SUM(total_amount)
+FROM orders
+GROUP BY CAST(order_date AS DATE), status;
@@ -0,0 +1,157 @@
+-- Monthly range partitions on order_date for orders and order_items. The partitioned
+-- tables are built next to the current ones (orders_p, order_items_p), kept in sync by
+-- triggers while V8 copies existing rows in batches, and swapped in by V9.
+
+-- Hibernate may already have added it (ddl-auto=update); the copy below needs it either way
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS version BIGINT;
+
+CREATE TABLE orders_p (
+                          id BIGINT NOT NULL DEFAULT nextval('orders_id_seq'),
+                          customer_id BIGINT NOT NULL,
+                          customer_name VARCHAR(255),
+                          order_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                          status VARCHAR(20) NOT NULL,
+                          total_amount DECIMAL(10,2) NOT NULL,
+                          notes TEXT,
+                          version BIGINT NOT NULL DEFAULT 0,
+                          created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                          updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                          CONSTRAINT orders_p_pkey PRIMARY KEY (id, order_date)
+) PARTITION BY RANGE (order_date);
+
+-- Items carry their order's date so they partition (and are pruned) the same way
+CREATE TABLE order_items_p (
+                               id BIGINT NOT NULL DEFAULT nextval('order_items_id_seq'),
+                               order_id BIGINT NOT NULL,
+                               order_date TIMESTAMP NOT NULL,
+                               product_id BIGINT NOT NULL,
+                               product_name VARCHAR(255),
+                               product_sku VARCHAR(50),
+                               quantity INTEGER NOT NULL,
+                               unit_price DECIMAL(10,2) NOT NULL,
+                               subtotal DECIMAL(10,2) NOT NULL,
+                               version BIGINT,
+                               created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                               CONSTRAINT order_items_p_pkey PRIMARY KEY (id, order_date),
+                               CONSTRAINT fk_order_items_p_order FOREIGN KEY (order_id, order_date) REFERENCES orders_p(id, order_date)
+) PARTITION BY RANGE (order_date);
+
+-- Indexes on the parents are created on every partition
+CREATE INDEX idx_orders_p_date_id ON orders_p(order_date, id);
+CREATE INDEX idx_orders_p_customer_date ON orders_p(customer_id, order_date, id);
+CREATE INDEX idx_orders_p_status_date ON orders_p(status, order_date, id);
+CREATE INDEX idx_order_items_p_order ON order_items_p(order_id);
+CREATE INDEX idx_order_items_p_product ON order_items_p(product_id);
+
+CREATE TRIGGER update_orders_p_updated_at
+    BEFORE UPDATE ON orders_p
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+CREATE TRIGGER calculate_order_item_p_subtotal_trigger
+    BEFORE INSERT OR UPDATE ON order_items_p
+    FOR EACH ROW
+    EXECUTE FUNCTION calculate_order_item_subtotal();
+
+-- Creates <prefix>_yYYYYmMM partitions of parent for the given number of months; existing ones are skipped.
+-- Called by the application ahead of time (OrderPartitionService), so the default partitions stay empty.
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent TEXT, prefix TEXT, from_month DATE, months INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    FOR i IN 0..months - 1 LOOP
+        month_start := (date_trunc('month', from_month) + make_interval(months => i))::DATE;
+        partition_name := prefix || '_' || to_char(month_start, '"y"YYYY"m"MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, parent, month_start, (month_start + INTERVAL '1 month')::DATE);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Every month with existing orders, plus the next three
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', COALESCE((SELECT MIN(order_date) FROM orders), CURRENT_TIMESTAMP))::DATE;
+    months INTEGER := ((EXTRACT(YEAR FROM age(date_trunc('month', CURRENT_DATE), first_month)) * 12)
+        + EXTRACT(MONTH FROM age(date_trunc('month', CURRENT_DATE), first_month)))::INTEGER + 4;
+BEGIN
+    PERFORM create_monthly_partitions('orders_p', 'orders', first_month, months);
+    PERFORM create_monthly_partitions('order_items_p', 'order_items', first_month, months);
+END;
+$$;
+
+-- Catches rows outside every monthly partition instead of failing the insert
+CREATE TABLE orders_default PARTITION OF orders_p DEFAULT;
+CREATE TABLE order_items_default PARTITION OF order_items_p DEFAULT;
+
+-- Mirror writes on the current tables until V9 swaps them out
+CREATE OR REPLACE FUNCTION mirror_orders_to_partitioned()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM orders_p WHERE id = OLD.id AND order_date = OLD.order_date;
+        RETURN OLD;
+    END IF;
+    INSERT INTO orders_p (id, customer_id, customer_name, order_date, status, total_amount, notes, version,
+                          created_at, updated_at)
+    VALUES (NEW.id, NEW.customer_id, NEW.customer_name, NEW.order_date, NEW.status, NEW.total_amount, NEW.notes,
+            NEW.version, NEW.created_at, NEW.updated_at)
+    ON CONFLICT (id, order_date) DO UPDATE SET
+        customer_id = EXCLUDED.customer_id,
+        customer_name = EXCLUDED.customer_name,
+        status = EXCLUDED.status,
+        total_amount = EXCLUDED.total_amount,
+        notes = EXCLUDED.notes,
+        version = EXCLUDED.version;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION mirror_order_items_to_partitioned()
+RETURNS TRIGGER AS $$
+DECLARE
+    item_order_date TIMESTAMP;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM order_items_p WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+    -- The backfill may not have reached this item's order yet
+    INSERT INTO orders_p (id, customer_id, customer_name, order_date, status, total_amount, notes, version,
+                          created_at, updated_at)
+    SELECT id, customer_id, customer_name, order_date, status, total_amount, notes, version, created_at, updated_at
+    FROM orders WHERE id = NEW.order_id
+    ON CONFLICT (id, order_date) DO NOTHING;
+
+    SELECT order_date INTO item_order_date FROM orders WHERE id = NEW.order_id;
+    INSERT INTO order_items_p (id, order_id, order_date, product_id, product_name, product_sku, quantity,
+                               unit_price, subtotal, version, created_at)
+    VALUES (NEW.id, NEW.order_id, item_order_date, NEW.product_id, NEW.product_name, NEW.product_sku,
+            NEW.quantity, NEW.unit_price, NEW.subtotal, NEW.version, NEW.created_at)
+    ON CONFLICT (id, order_date) DO UPDATE SET
+        product_id = EXCLUDED.product_id,
+        product_name = EXCLUDED.product_name,
+        product_sku = EXCLUDED.product_sku,
+        quantity = EXCLUDED.quantity,
+        unit_price = EXCLUDED.unit_price,
+        version = EXCLUDED.version;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER mirror_orders_to_partitioned
+    AFTER INSERT OR UPDATE OR DELETE ON orders
+    FOR EACH ROW
+    EXECUTE FUNCTION mirror_orders_to_partitioned();
+
+CREATE TRIGGER mirror_order_items_to_partitioned
+    AFTER INSERT OR UPDATE OR DELETE ON order_items
+    FOR EACH ROW
+    EXECUTE FUNCTION mirror_order_items_to_partitioned();
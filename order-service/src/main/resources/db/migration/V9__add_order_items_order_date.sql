@@ -0,0 +1,20 @@
+-- This release writes order_items.order_date; instances of the previous release do not. The
+-- column stays nullable here and a trigger fills it from the order, so both can run side by
+-- side. The swap to the partitioned tables, where order_date is the partition key and must be
+-- set by the insert itself, ships in the next release (db/next-release).
+ALTER TABLE order_items ADD COLUMN IF NOT EXISTS order_date TIMESTAMP;
+
+CREATE OR REPLACE FUNCTION fill_order_item_order_date()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF NEW.order_date IS NULL THEN
+        SELECT order_date INTO NEW.order_date FROM orders WHERE id = NEW.order_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER fill_order_item_order_date
+    BEFORE INSERT ON order_items
+    FOR EACH ROW
+    EXECUTE FUNCTION fill_order_item_order_date();
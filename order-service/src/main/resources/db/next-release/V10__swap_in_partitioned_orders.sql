@@ -0,0 +1,75 @@
+-- Not on Flyway's path yet: move this into db/migration in the release after the one that added
+-- V9, once no instance older than that is left. Their item inserts lack order_date, which the
+-- partitioned order_items needs to route the row.
+--
+-- V8 has copied every row and the mirror triggers covered writes made meanwhile, so the
+-- swap is mostly renames. The exclusive lock is held for those and for moving the rows
+-- mirrored into the default partitions since V7, which is at most the months in between.
+LOCK TABLE orders, order_items IN ACCESS EXCLUSIVE MODE;
+
+-- OrderPartitionService leaves the partitioned copies alone until this swap, so months that began
+-- after V7 have no partitions yet and their mirrored rows sit in the default partitions. Take the
+-- defaults out, create every month they hold plus the coming ones, move the rows over and put the
+-- emptied defaults back. Items are detached first: they reference the orders in orders_default.
+ALTER TABLE order_items_p DETACH PARTITION order_items_default;
+ALTER TABLE orders_p DETACH PARTITION orders_default;
+
+DO $$
+DECLARE
+    first_month DATE := date_trunc('month', LEAST(CURRENT_DATE,
+        COALESCE((SELECT MIN(order_date) FROM orders_default), CURRENT_DATE)))::DATE;
+    -- Three months ahead, or further should a row be dated later; the default is not there to catch it
+    last_month DATE := date_trunc('month', GREATEST(CURRENT_DATE + INTERVAL '3 months',
+        COALESCE((SELECT MAX(order_date) FROM orders_default), CURRENT_DATE)))::DATE;
+    months INTEGER := ((EXTRACT(YEAR FROM age(last_month, first_month)) * 12)
+        + EXTRACT(MONTH FROM age(last_month, first_month)))::INTEGER + 1;
+BEGIN
+    PERFORM create_monthly_partitions('orders_p', 'orders', first_month, months);
+    PERFORM create_monthly_partitions('order_items_p', 'order_items', first_month, months);
+END;
+$$;
+
+INSERT INTO orders_p SELECT * FROM orders_default;
+INSERT INTO order_items_p SELECT * FROM order_items_default;
+TRUNCATE order_items_default, orders_default;
+ALTER TABLE orders_p ATTACH PARTITION orders_default DEFAULT;
+ALTER TABLE order_items_p ATTACH PARTITION order_items_default DEFAULT;
+
+DROP TRIGGER mirror_order_items_to_partitioned ON order_items;
+DROP TRIGGER mirror_orders_to_partitioned ON orders;
+DROP FUNCTION mirror_order_items_to_partitioned();
+DROP FUNCTION mirror_orders_to_partitioned();
+DROP TRIGGER fill_order_item_order_date ON order_items;
+DROP FUNCTION fill_order_item_order_date();
+
+-- The outbox referenced orders(id); a partitioned orders table only has a unique (id, order_date)
+ALTER TABLE stock_outbox DROP CONSTRAINT fk_stock_outbox_order;
+
+-- Keep the old tables (renamed) until the partitioned ones have been verified; drop them in a later migration
+ALTER TABLE order_items RENAME TO order_items_legacy;
+ALTER TABLE orders RENAME TO orders_legacy;
+ALTER TABLE orders_legacy RENAME CONSTRAINT orders_pkey TO orders_legacy_pkey;
+ALTER TABLE order_items_legacy RENAME CONSTRAINT order_items_pkey TO order_items_legacy_pkey;
+ALTER TABLE order_items_legacy RENAME CONSTRAINT fk_order_items_order TO fk_order_items_legacy_order;
+ALTER INDEX idx_orders_date_id RENAME TO idx_orders_legacy_date_id;
+ALTER INDEX idx_orders_customer_date RENAME TO idx_orders_legacy_customer_date;
+ALTER INDEX idx_orders_status_date RENAME TO idx_orders_legacy_status_date;
+ALTER INDEX idx_order_items_order RENAME TO idx_order_items_legacy_order;
+ALTER INDEX idx_order_items_product RENAME TO idx_order_items_legacy_product;
+
+ALTER TABLE orders_p RENAME TO orders;
+ALTER TABLE order_items_p RENAME TO order_items;
+ALTER TABLE orders RENAME CONSTRAINT orders_p_pkey TO orders_pkey;
+ALTER TABLE order_items RENAME CONSTRAINT order_items_p_pkey TO order_items_pkey;
+ALTER TABLE order_items RENAME CONSTRAINT fk_order_items_p_order TO fk_order_items_order;
+ALTER INDEX idx_orders_p_date_id RENAME TO idx_orders_date_id;
+ALTER INDEX idx_orders_p_customer_date RENAME TO idx_orders_customer_date;
+ALTER INDEX idx_orders_p_status_date RENAME TO idx_orders_status_date;
+ALTER INDEX idx_order_items_p_order RENAME TO idx_order_items_order;
+ALTER INDEX idx_order_items_p_product RENAME TO idx_order_items_product;
+ALTER TRIGGER update_orders_p_updated_at ON orders RENAME TO update_orders_updated_at;
+ALTER TRIGGER calculate_order_item_p_subtotal_trigger ON order_items RENAME TO calculate_order_item_subtotal_trigger;
+
+-- The ids keep coming from the same sequences
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+ALTER SEQUENCE order_items_id_seq OWNED BY order_items.id;
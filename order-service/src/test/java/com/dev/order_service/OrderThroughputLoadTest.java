@@ -0,0 +1,345 @@
+package com.dev.order_service;
+
+import com.dev.order_service.dto.CustomerDTO;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.dto.ProductDTO;
+import com.dev.order_service.dto.StockReservationDTO;
+import com.dev.order_service.dto.StockReservationOutcomeDTO;
+import com.dev.order_service.enums.ReservationOutcome;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end throughput and latency of {@code POST /orders} without the docker-compose stack.
+ * The whole service boots against in-process stubs of customer-service and product-service
+ * (configurable latency and error injection), H2 in PostgreSQL mode in place of Postgres and an
+ * in-memory cache manager in place of Redis.
+ * <p>
+ * Traffic follows an open model: requests are issued at a constant arrival rate whether or not
+ * earlier ones have completed, and latency is measured from each request's scheduled start, so
+ * a stall shows up in the percentiles instead of silently lowering the offered load.
+ * <p>
+ * Run with {@code mvn test -Dtest=OrderThroughputLoadTest -Dbenchmark=true}, tuned with
+ * {@code -Dload.rate} (orders/s), {@code -Dload.duration-s}, {@code -Dload.warmup-s},
+ * {@code -Dload.stub.latency-ms} and {@code -Dload.stub.error-rate} (0.0-1.0). The HdrHistogram
+ * percentile report is logged and written to {@code target/load/orders-<rate>rps.hgrm}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-throughput;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "spring.flyway.enabled=false",
+        // Hibernate creates plain tables, so there are no partitions to maintain
+        "order.partitions.maintenance.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.com.dev.order_service.OrderThroughputLoadTest=INFO",
+        "order.validation.parallel.enabled=true",
+        "resilience4j.ratelimiter.instances.orderService.limit-for-period=1000000",
+        "resilience4j.ratelimiter.instances.orderService.limit-refresh-period=1s"
+})
+class OrderThroughputLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderThroughputLoadTest.class);
+    private static final int RATE = Integer.getInteger("load.rate", 20);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-s", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-s", 5);
+    private static final long STUB_LATENCY_MS = Long.getLong("load.stub.latency-ms", 10);
+    private static final double STUB_ERROR_RATE = Double.parseDouble(System.getProperty("load.stub.error-rate", "0"));
+
+    private static final int CUSTOMERS = 1_000;
+    private static final int PRODUCTS = 200;
+    private static final BigDecimal PRICE = new BigDecimal("19.99");
+    // Highest latency the histogram tracks; slower responses are clamped to it
+    private static final long MAX_TRACKED_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    static {
+        // Without TCP_NODELAY the stub's split header/body writes hit the 40 ms delayed-ACK stall
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final LongAdder injectedErrors = new LongAdder();
+    private static HttpServer stubServer;
+    private static ExecutorService stubExecutor;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void stubServices(DynamicPropertyRegistry registry) throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        stubExecutor = Executors.newFixedThreadPool(200);
+        stubServer.setExecutor(stubExecutor);
+        stubServer.createContext("/api/customers", exchange -> stub(exchange, () -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/batch")) {
+                return ids(exchange).stream().map(OrderThroughputLoadTest::customer).collect(Collectors.toList());
+            }
+            return customer(lastSegment(path));
+        }));
+        stubServer.createContext("/api/products", exchange -> stub(exchange, () -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/stock/reservations/batch")) {
+                List<StockReservationDTO> reservations = objectMapper.readValue(
+                        exchange.getRequestBody(), new TypeReference<List<StockReservationDTO>>() {});
+                return reservations.stream().map(reservation -> {
+                    StockReservationOutcomeDTO outcome = new StockReservationOutcomeDTO();
+                    outcome.setIdempotencyKey(reservation.getIdempotencyKey());
+                    outcome.setOutcome(ReservationOutcome.APPLIED);
+                    return outcome;
+                }).collect(Collectors.toList());
+            }
+            if (path.equals("/api/products")) {
+                return ids(exchange).stream().map(OrderThroughputLoadTest::product).collect(Collectors.toList());
+            }
+            return product(lastSegment(path));
+        }));
+        stubServer.start();
+
+        String baseUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+        registry.add("client.customer-service.url", () -> baseUrl);
+        registry.add("client.product-service.url", () -> baseUrl);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stubServer.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void createOrderAtConstantArrivalRate() throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(64))
+                .build();
+        URI uri = URI.create("http://127.0.0.1:" + port + "/orders");
+
+        logger.info("Offered load {} orders/s for {} s (after {} s warm-up); stub latency {} ms, error rate {}",
+                RATE, DURATION_SECONDS, WARMUP_SECONDS, STUB_LATENCY_MS, STUB_ERROR_RATE);
+        drive(httpClient, uri, WARMUP_SECONDS, new ConcurrentHistogram(MAX_TRACKED_MICROS, 3), new ConcurrentHashMap<>());
+
+        injectedErrors.reset();
+        Histogram latencies = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        double seconds = drive(httpClient, uri, DURATION_SECONDS, latencies, statuses);
+
+        long total = latencies.getTotalCount();
+        int created = statuses.getOrDefault(201, new AtomicInteger()).get();
+        logger.info(String.format("Completed %d requests in %.1f s: %.1f orders/s created, statuses %s, "
+                + "stub errors injected %d", total, seconds, created / seconds, statuses, injectedErrors.sum()));
+        logger.info(String.format("Latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f",
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue())));
+        ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+        latencies.outputPercentileDistribution(new PrintStream(distribution, true, StandardCharsets.UTF_8), 1000.0);
+        logger.info("Latency distribution:\n{}", distribution.toString(StandardCharsets.UTF_8));
+
+        Path report = Path.of("target", "load", "orders-" + RATE + "rps.hgrm");
+        Files.createDirectories(report.getParent());
+        try (PrintStream out = new PrintStream(new FileOutputStream(report.toFile()), true, StandardCharsets.UTF_8)) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+        logger.info("HdrHistogram report written to {}", report.toAbsolutePath());
+
+        assertEquals((long) RATE * DURATION_SECONDS, total);
+        if (STUB_ERROR_RATE == 0) {
+            assertEquals(total, created, "every order should be created when no errors are injected");
+        } else {
+            assertTrue(created > 0, "no order was created");
+        }
+    }
+
+    // Issues requests on a fixed schedule and waits for all of them; returns the elapsed seconds
+    private double drive(HttpClient httpClient, URI uri, int seconds, Histogram latencies,
+                         Map<Integer, AtomicInteger> statuses) throws Exception {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        int requests = RATE * seconds;
+        List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long scheduledAt = start + i * intervalNanos;
+            long wait = scheduledAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(randomOrder())))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        // Measured from the scheduled start so queueing behind a slow request is counted
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+                        latencies.recordValue(Math.min(micros, MAX_TRACKED_MICROS));
+                        int status = response != null ? response.statusCode() : -1;
+                        statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+                        return status;
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        return (System.nanoTime() - start) / 1_000_000_000.0;
+    }
+
+    private static OrderDTO randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(random.nextLong(1, CUSTOMERS + 1));
+        BigDecimal total = BigDecimal.ZERO;
+        int lines = random.nextInt(1, 4);
+        long firstProduct = random.nextLong(1, PRODUCTS - lines + 2);
+        for (int line = 0; line < lines; line++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(firstProduct + line);
+            item.setQuantity(random.nextInt(1, 4));
+            item.setUnitPrice(PRICE);
+            order.getItems().add(item);
+            total = total.add(PRICE.multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static CustomerDTO customer(long id) {
+        return CustomerDTO.builder()
+                .id(id)
+                .firstName("Load")
+                .lastName("Customer " + id)
+                .email("customer" + id + "@example.com")
+                .active(true)
+                .build();
+    }
+
+    private static ProductDTO product(long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setSku("SKU-" + id);
+        product.setName("Product " + id);
+        product.setPrice(PRICE);
+        product.setStockQuantity(1_000_000);
+        return product;
+    }
+
+    private static long lastSegment(String path) {
+        return Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private static List<Long> ids(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        return Arrays.stream(query.substring(query.indexOf("ids=") + 4).split("[,&]"))
+                .filter(id -> !id.isEmpty() && !id.contains("="))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static void stub(HttpExchange exchange, StubResponse response) throws IOException {
+        try (exchange) {
+            int status = 200;
+            byte[] body = new byte[0];
+            try {
+                if (STUB_LATENCY_MS > 0) {
+                    Thread.sleep(STUB_LATENCY_MS);
+                }
+                if (STUB_ERROR_RATE > 0 && ThreadLocalRandom.current().nextDouble() < STUB_ERROR_RATE) {
+                    injectedErrors.increment();
+                    status = 503;
+                } else {
+                    body = objectMapper.writeValueAsBytes(response.body());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = 503;
+            } catch (Exception e) {
+                status = 500;
+            }
+
+            if (body.length == 0) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface StubResponse {
+        Object body() throws Exception;
+    }
+
+    @TestConfiguration
+    static class RedisStandIn {
+
+        // Replaces the Redis-backed cache manager; nothing on the create path needs Redis itself
+        @Bean
+        @Primary
+        CacheManager inMemoryCacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
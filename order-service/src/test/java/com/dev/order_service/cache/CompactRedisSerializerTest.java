@@ -0,0 +1,106 @@
+package com.dev.order_service.cache;
+
+import com.dev.common.cache.CompactRedisSerializer;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.enums.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Round trips of order cache values through both write formats, with payloads on either side of
+ * the compression threshold.
+ */
+class CompactRedisSerializerTest {
+
+    private static final int COMPRESSION_THRESHOLD = 1024;
+    // The types RedisConfig registers, in the same order
+    private static final List<Class<?>> REGISTERED_TYPES = List.of(OrderDTO.class, OrderItemDTO.class);
+
+    @ParameterizedTest(name = "compact={0}, {1} items")
+    @CsvSource({"false, 1", "false, 50", "true, 1", "true, 50"})
+    void orderRoundTrips(boolean compact, int items) {
+        CompactRedisSerializer serializer = serializer(compact);
+        OrderDTO order = order(1L, items);
+
+        byte[] bytes = serializer.serialize(order);
+
+        assertEquals(order, serializer.deserialize(bytes));
+        if (compact) {
+            assertEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+            // Flags byte: gzip only above the threshold
+            assertEquals(items > 1 ? 1 : 0, bytes[2]);
+        } else {
+            assertNotEquals(CompactRedisSerializer.MAGIC, bytes[0]);
+        }
+    }
+
+    @ParameterizedTest(name = "compact={0}")
+    @CsvSource({"false", "true"})
+    void orderListRoundTrips(boolean compact) {
+        CompactRedisSerializer serializer = serializer(compact);
+        List<OrderDTO> orders = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            orders.add(order(id, 3));
+        }
+
+        assertEquals(orders, serializer.deserialize(serializer.serialize(orders)));
+    }
+
+    @Test
+    void eitherFormatReadsWhatTheOtherWrote() {
+        OrderDTO order = order(7L, 5);
+        CompactRedisSerializer json = serializer(false);
+        CompactRedisSerializer compact = serializer(true);
+
+        assertEquals(order, compact.deserialize(json.serialize(order)));
+        assertEquals(order, json.deserialize(compact.serialize(order)));
+    }
+
+    @Test
+    void newerFormatVersionIsAMiss() {
+        CompactRedisSerializer serializer = serializer(true);
+        byte[] bytes = serializer.serialize(order(1L, 1));
+        bytes[1] = CompactRedisSerializer.FORMAT_VERSION + 1;
+
+        assertEquals(null, serializer.deserialize(bytes));
+    }
+
+    private static CompactRedisSerializer serializer(boolean compact) {
+        return new CompactRedisSerializer(REGISTERED_TYPES, compact, COMPRESSION_THRESHOLD);
+    }
+
+    private static OrderDTO order(Long id, int itemCount) {
+        OrderDTO order = new OrderDTO();
+        order.setId(id);
+        order.setCustomerId(42L);
+        order.setCustomerName("Test Customer");
+        order.setOrderDate(LocalDateTime.of(2024, 3, 15, 10, 30, 15, 123_000_000));
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setNotes("Leave at the door");
+        BigDecimal total = BigDecimal.ZERO;
+        for (long i = 1; i <= itemCount; i++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setId(i);
+            item.setProductId(100 + i);
+            item.setProductName("Product " + i);
+            item.setProductSku("SKU-" + i);
+            item.setQuantity(2);
+            item.setUnitPrice(new BigDecimal("9.99"));
+            item.setSubtotal(new BigDecimal("19.98"));
+            order.getItems().add(item);
+            total = total.add(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        return order;
+    }
+}
@@ -0,0 +1,133 @@
+package com.dev.order_service.client;
+
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.dto.ProductDTO;
+import com.dev.order_service.enums.OrderStatus;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the Feign codec stack Spring Cloud OpenFeign installs by default
+ * (SpringEncoder, ResponseEntityDecoder over SpringDecoder), for an order and a product body.
+ * Run with {@code mvn -P benchmark test -Djmh.include=FeignCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeignCodecBenchmark {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.GET, "http://localhost/benchmark",
+            Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private Encoder encoder;
+    private Decoder decoder;
+    private OrderDTO order;
+    private ProductDTO product;
+    private byte[] orderJson;
+    private byte[] productJson;
+
+    @Setup
+    public void setUp() {
+        HttpMessageConverters messageConverters = new HttpMessageConverters(
+                new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build()));
+        encoder = new SpringEncoder(() -> messageConverters);
+        decoder = new ResponseEntityDecoder(new SpringDecoder(() -> messageConverters,
+                new DefaultListableBeanFactory().getBeanProvider(HttpMessageConverterCustomizer.class)));
+
+        order = new OrderDTO();
+        order.setId(1L);
+        order.setCustomerId(1L);
+        order.setCustomerName("Test Customer");
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setTotalAmount(new BigDecimal("199.90"));
+        for (long productId = 1; productId <= 10; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setId(productId);
+            item.setProductId(productId);
+            item.setProductName("Product " + productId);
+            item.setQuantity(1);
+            item.setUnitPrice(new BigDecimal("19.99"));
+            item.setSubtotal(new BigDecimal("19.99"));
+            order.getItems().add(item);
+        }
+
+        product = new ProductDTO();
+        product.setId(1L);
+        product.setSku("SKU-1");
+        product.setName("Product 1");
+        product.setDescription("A product used to benchmark the Feign codecs");
+        product.setPrice(new BigDecimal("19.99"));
+        product.setStockQuantity(100);
+
+        orderJson = encodeOrder();
+        productJson = encodeProduct();
+    }
+
+    @Benchmark
+    public byte[] encodeOrder() {
+        RequestTemplate template = new RequestTemplate();
+        encoder.encode(order, OrderDTO.class, template);
+        return template.body();
+    }
+
+    @Benchmark
+    public byte[] encodeProduct() {
+        RequestTemplate template = new RequestTemplate();
+        encoder.encode(product, ProductDTO.class, template);
+        return template.body();
+    }
+
+    @Benchmark
+    public Object decodeOrder() throws IOException {
+        return decoder.decode(response(orderJson), OrderDTO.class);
+    }
+
+    @Benchmark
+    public Object decodeProduct() throws IOException {
+        return decoder.decode(response(productJson), ProductDTO.class);
+    }
+
+    private static Response response(byte[] body) {
+        return Response.builder()
+                .status(200)
+                .reason("OK")
+                .headers(Map.of("Content-Type", List.of("application/json")))
+                .request(REQUEST)
+                .body(body)
+                .build();
+    }
+}
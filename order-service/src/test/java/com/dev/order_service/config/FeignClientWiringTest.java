@@ -0,0 +1,139 @@
+package com.dev.order_service.config;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.client.fallback.CustomerClientFallback;
+import com.dev.order_service.client.fallback.CustomerClientFallbackFactory;
+import com.dev.order_service.client.fallback.ProductClientFallback;
+import com.dev.order_service.client.fallback.ProductClientFallbackFactory;
+import com.dev.order_service.dto.CustomerDTO;
+import com.dev.order_service.exception.OrderNotFoundException;
+import com.dev.order_service.exception.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JAutoConfiguration;
+import org.springframework.cloud.openfeign.FeignAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Boots the Feign configuration against an in-process stub of customer-service, to check that the
+ * clients injected into the services are the remote clients rather than their fallbacks, and that
+ * with circuit breakers on only an unavailable downstream gets the fallback.
+ */
+class FeignClientWiringTest {
+
+    private HttpServer server;
+    private ApplicationContextRunner contextRunner;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/customers/1", exchange -> {
+            byte[] body = "{\"id\":1,\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"active\":true}"
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/api/customers/404", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/api/customers/503", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(FeignAutoConfiguration.class,
+                        HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+                        Resilience4JAutoConfiguration.class))
+                .withUserConfiguration(Registries.class, FeignConfig.class, FeignTransportConfig.class,
+                        CustomerClientFallback.class, ProductClientFallback.class,
+                        CustomerClientFallbackFactory.class, ProductClientFallbackFactory.class)
+                .withPropertyValues(
+                        "client.customer-service.url=" + baseUrl,
+                        "client.product-service.url=" + baseUrl);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void servicesGetTheRemoteClients() {
+        contextRunner.run(context -> {
+            // The fallbacks are beans too; the Feign clients must win as the primary candidates
+            assertThat(context.getBean(CustomerClient.class)).isNotInstanceOf(CustomerClientFallback.class);
+            assertThat(context.getBean(ProductClient.class)).isNotInstanceOf(ProductClientFallback.class);
+
+            CustomerDTO customer = context.getBean(CustomerClient.class).getCustomer(1L);
+            assertThat(customer.getFirstName()).isEqualTo("Ada");
+        });
+    }
+
+    @Test
+    void breakersOnlyReplaceUnavailableCalls() {
+        contextRunner.withPropertyValues("spring.cloud.openfeign.circuitbreaker.enabled=true").run(context -> {
+            CustomerClient customerClient = context.getBean(CustomerClient.class);
+
+            assertThat(customerClient.getCustomer(1L).getFirstName()).isEqualTo("Ada");
+            // A 404 keeps its meaning instead of turning into "unavailable"
+            assertThatThrownBy(() -> customerClient.getCustomer(404L)).isInstanceOf(OrderNotFoundException.class);
+            assertThatThrownBy(() -> customerClient.getCustomer(503L))
+                    .isInstanceOf(ServiceUnavailableException.class)
+                    .hasMessage("Customer service is currently unavailable");
+
+            CircuitBreaker breaker = context.getBean(CircuitBreakerRegistry.class).getAllCircuitBreakers().stream()
+                    .filter(candidate -> candidate.getName().contains("getCustomer"))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(breaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+            assertThat(breaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+            assertThat(context.getBean(MeterRegistry.class).find("resilience4j.circuitbreaker.state")
+                    .tag("name", breaker.getName()).gauges()).isNotEmpty();
+        });
+    }
+
+    // What the application gets from the actuator and resilience4j auto-configurations
+    @Configuration
+    static class Registries {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        CircuitBreakerRegistry circuitBreakerRegistry() {
+            return CircuitBreakerRegistry.ofDefaults();
+        }
+
+        @Bean
+        TimeLimiterRegistry timeLimiterRegistry() {
+            return TimeLimiterRegistry.ofDefaults();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dev.order_service.config;
+
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.ProductDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Request;
+import feign.codec.Decoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the Feign transports against an in-process stub of product-service that answers
+ * after a fixed delay. Run with {@code mvn test -Dtest=FeignTransportBenchmarkTest -Dbenchmark=true}.
+ * The JDK stub server only speaks HTTP/1.1, so the http2 transport is measured on its keep-alive
+ * fallback here; multiplexing needs an h2c-capable server.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FeignTransportBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeignTransportBenchmarkTest.class);
+    private static final long STUB_LATENCY_MS = 10;
+    private static final int CALLERS = 32;
+    private static final int REQUESTS = 8_000;
+    private static final int ROUNDS = 3;
+
+    static {
+        // Without TCP_NODELAY the stub's split header/body writes hit the 40 ms delayed-ACK stall
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService callers;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverExecutor = Executors.newFixedThreadPool(128);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/api/products/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/api/products/".length());
+            byte[] body = ("{\"id\":" + id + ",\"name\":\"Product " + id + "\",\"sku\":\"SKU-" + id
+                    + "\",\"price\":10.00,\"stockQuantity\":100}").getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(STUB_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void compareTransportThroughput() throws Exception {
+        CloseableHttpClient pooled = FeignTransportConfig.pooledHttpClient(200, CALLERS, 5000, 30000);
+        try {
+            logger.info(String.format("%-10s %-9s %12s", "transport", "mode", "req/s"));
+            benchmark("default", new Client.Default(null, null));
+            benchmark("hc5", new RouteConcurrencyLimitingClient(new ApacheHttp5Client(pooled), CALLERS, 1000));
+            benchmark("http2", new RouteConcurrencyLimitingClient(
+                    new Http2Client(FeignTransportConfig.http2HttpClient(5000)), CALLERS, 1000));
+        } finally {
+            pooled.close();
+        }
+    }
+
+    private void benchmark(String name, Client transport) throws Exception {
+        ProductClient client = Feign.builder()
+                .client(transport)
+                .contract(new SpringMvcContract())
+                .decoder(jsonDecoder())
+                .options(new Request.Options(5, TimeUnit.SECONDS, 5, TimeUnit.SECONDS, true))
+                .target(ProductClient.class, baseUrl);
+
+        // Warm up connections and JIT before measuring
+        blockingRound(client, REQUESTS / 4);
+        double blocking = medianThroughput(() -> blockingRound(client, REQUESTS));
+        logger.info(String.format("%-10s %-9s %12.0f", name, "blocking", blocking));
+        double async = medianThroughput(() -> asyncRound(client, REQUESTS));
+        logger.info(String.format("%-10s %-9s %12.0f", name, "async", async));
+    }
+
+    private double medianThroughput(Round round) throws Exception {
+        double[] throughput = new double[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            assertEquals(REQUESTS, round.run());
+            throughput[i] = REQUESTS / ((System.nanoTime() - start) / 1_000_000_000.0);
+        }
+        Arrays.sort(throughput);
+        return throughput[ROUNDS / 2];
+    }
+
+    // CALLERS threads each issue their share of calls back to back
+    private int blockingRound(ProductClient client, int requests) throws Exception {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int caller = 0; caller < CALLERS; caller++) {
+            int offset = caller;
+            results.add(callers.submit(() -> {
+                int completed = 0;
+                for (long id = offset; id < requests; id += CALLERS) {
+                    if (client.getProduct(id).getId() == id) {
+                        completed++;
+                    }
+                }
+                return completed;
+            }));
+        }
+        int completed = 0;
+        for (Future<Integer> result : results) {
+            completed += result.get();
+        }
+        return completed;
+    }
+
+    // One thread fires every call through the async variant and waits for all of them
+    private int asyncRound(ProductClient client, int requests) {
+        List<CompletableFuture<ProductDTO>> results = new ArrayList<>(requests);
+        for (long id = 0; id < requests; id++) {
+            results.add(client.getProductAsync(id, callers));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        return results.size();
+    }
+
+    private Decoder jsonDecoder() {
+        return (response, type) -> objectMapper.readValue(response.body().asInputStream(), objectMapper.constructType(type));
+    }
+
+    @FunctionalInterface
+    private interface Round {
+        int run() throws Exception;
+    }
+}
@@ -0,0 +1,64 @@
+package com.dev.order_service.config;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The pooled hc5 transport against an in-process stub that answers every request with a 503.
+ */
+class FeignTransportConfigTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/products/1/deduct-stock", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().add("Retry-After", "0");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void pooledClientDoesNotResendStockMutations() throws Exception {
+        try (CloseableHttpClient httpClient = FeignTransportConfig.pooledHttpClient(10, 10, 1000, 30_000)) {
+            Request request = Request.create(Request.HttpMethod.POST, baseUrl + "/api/products/1/deduct-stock",
+                    Map.of("Content-Type", List.of("application/json")),
+                    "{\"quantity\":1}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8, null);
+
+            try (Response response = new ApacheHttp5Client(httpClient).execute(request, new Request.Options())) {
+                assertEquals(503, response.status());
+            }
+        }
+
+        // A retried deduct would take the stock twice
+        assertEquals(1, requests.get(), "the 503 should reach the caller without the request being resent");
+    }
+}
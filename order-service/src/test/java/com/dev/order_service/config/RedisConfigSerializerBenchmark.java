@@ -0,0 +1,89 @@
+package com.dev.order_service.config;
+
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.enums.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the value serializer RedisConfig installs for cached orders, in each
+ * supported format. The serializer is taken from the configured redisTemplate; no Redis
+ * connection is opened.
+ * Run with {@code mvn -P benchmark test -Djmh.include=RedisConfigSerializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisConfigSerializerBenchmark {
+
+    @Param({"json", "compact"})
+    public String format;
+
+    @Param({"1", "20"})
+    public int items;
+
+    private RedisSerializer<Object> serializer;
+    private OrderDTO order;
+    private byte[] bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisConfig redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "serializerFormat", format);
+        ReflectionTestUtils.setField(redisConfig, "compressionThreshold", 1024);
+        serializer = (RedisSerializer<Object>) redisConfig.redisTemplate(new LettuceConnectionFactory()).getValueSerializer();
+
+        order = new OrderDTO();
+        order.setId(1L);
+        order.setCustomerId(1L);
+        order.setCustomerName("Test Customer");
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        order.setStatus(OrderStatus.CONFIRMED);
+        BigDecimal total = BigDecimal.ZERO;
+        for (long productId = 1; productId <= items; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setId(productId);
+            item.setProductId(productId);
+            item.setProductName("Product " + productId);
+            item.setProductSku("SKU-" + productId);
+            item.setQuantity(2);
+            item.setUnitPrice(new BigDecimal("19.99"));
+            item.setSubtotal(new BigDecimal("39.98"));
+            order.getItems().add(item);
+            total = total.add(item.getSubtotal());
+        }
+        order.setTotalAmount(total);
+        bytes = serializer.serialize(order);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,39 @@
+package com.dev.order_service.controller;
+
+import com.dev.order_service.dto.OrderConfirmationDTO;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The response code of order creation follows the status the order ended up in, and the
+ * confirmation is returned with every one of them.
+ */
+class OrderControllerTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderController controller = new OrderController(orderService, new ObjectMapper());
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({"CONFIRMED, CREATED", "PENDING, ACCEPTED", "FAILED, CONFLICT"})
+    void creationStatusFollowsTheOrderStatus(OrderStatus orderStatus, HttpStatus expected) {
+        OrderConfirmationDTO confirmation = OrderConfirmationDTO.builder().orderId(1L).status(orderStatus).build();
+        when(orderService.createOrder(any())).thenReturn(confirmation);
+
+        ResponseEntity<OrderConfirmationDTO> response = controller.createOrder(new OrderDTO());
+
+        assertEquals(expected, response.getStatusCode());
+        assertSame(confirmation, response.getBody());
+    }
+}
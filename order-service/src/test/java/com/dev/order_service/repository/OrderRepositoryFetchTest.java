@@ -0,0 +1,126 @@
+package com.dev.order_service.repository;
+
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.OrderItem;
+import com.dev.order_service.enums.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards against lazy-load N+1 on Order.items: reading the items of every order in a large
+ * result set must not issue one statement per order.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderRepositoryFetchTest {
+
+    private static final int ORDER_COUNT = 500;
+    private static final long CUSTOMER_ID = 1L;
+    private static final long PRODUCT_ID = 42L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = new Order();
+            order.setCustomerId(CUSTOMER_ID);
+            order.setStatus(OrderStatus.PENDING);
+            order.setOrderDate(START.plusMinutes(i));
+            order.setTotalAmount(BigDecimal.valueOf(30));
+            order.getItems().add(item(order, PRODUCT_ID));
+            order.getItems().add(item(order, PRODUCT_ID + 1 + i));
+            entityManager.persist(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findByCustomerIdLoadsItemsInOneStatement() {
+        List<Order> orders = orderRepository.findByCustomerId(CUSTOMER_ID);
+
+        assertEquals(ORDER_COUNT, orders.size());
+        assertEquals(ORDER_COUNT * 2, countItems(orders));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByStatusLoadsItemsInOneStatement() {
+        List<Order> orders = orderRepository.findByStatus(OrderStatus.PENDING);
+
+        assertEquals(ORDER_COUNT * 2, countItems(orders));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findOrdersBetweenDatesLoadsItemsInOneStatement() {
+        List<Order> orders = orderRepository.findOrdersBetweenDates(START, START.plusDays(1));
+
+        assertEquals(ORDER_COUNT * 2, countItems(orders));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByProductIdLoadsAllItemsOfMatchingOrders() {
+        List<Order> orders = orderRepository.findByProductId(PRODUCT_ID);
+
+        assertEquals(ORDER_COUNT, orders.size());
+        assertEquals(ORDER_COUNT * 2, countItems(orders));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPageBatchFetchesItems() {
+        List<Order> orders = orderRepository.findOrdersBetweenDatesAfter(
+                START, START.plusDays(1), START, 0L, Limit.of(ORDER_COUNT));
+
+        assertEquals(ORDER_COUNT * 2, countItems(orders));
+        // One page query plus one items query per @BatchSize batch of orders
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 1 + ORDER_COUNT / 100, "expected batch fetching, got " + statements + " statements");
+    }
+
+    private static int countItems(List<Order> orders) {
+        return orders.stream().mapToInt(order -> order.getItems().size()).sum();
+    }
+
+    private static OrderItem item(Order order, long productId) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(productId);
+        item.setQuantity(1);
+        item.setUnitPrice(BigDecimal.valueOf(15));
+        item.setSubtotal(BigDecimal.valueOf(15));
+        return item;
+    }
+}
@@ -0,0 +1,150 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.CustomerDTO;
+import com.dev.order_service.dto.ProductDTO;
+import com.dev.order_service.dto.StockReservationDTO;
+import com.dev.order_service.dto.StockReservationOutcomeDTO;
+import com.dev.order_service.dto.StockReservationResultDTO;
+import com.dev.order_service.dto.StockUpdateDTO;
+import com.dev.order_service.enums.ReservationOutcome;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for the Feign clients, shared by the service tests. Each test passes the
+ * lookups it relies on and, for load tests, a simulated remote latency; anything it does not
+ * pass throws, so an unexpected remote call fails the test.
+ */
+final class ClientStubs {
+
+    private ClientStubs() {
+    }
+
+    static Customers customers(long latencyMs, Function<Long, CustomerDTO> lookup) {
+        return new Customers(latencyMs, lookup);
+    }
+
+    static Products products(long latencyMs, Function<Long, ProductDTO> lookup,
+                             Function<StockReservationDTO, ReservationOutcome> reservations) {
+        return new Products(latencyMs, lookup, reservations);
+    }
+
+    static Customers unreachableCustomers() {
+        return customers(0, id -> {
+            throw new UnsupportedOperationException();
+        });
+    }
+
+    static Products unreachableProducts() {
+        return products(0, id -> {
+            throw new UnsupportedOperationException();
+        }, null);
+    }
+
+    static CustomerDTO customer(Long id, boolean active) {
+        return CustomerDTO.builder().id(id).firstName("Test").lastName("Customer").active(active).build();
+    }
+
+    static ProductDTO product(Long id, BigDecimal price, int stockQuantity) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(price);
+        product.setStockQuantity(stockQuantity);
+        return product;
+    }
+
+    private static void simulateLatency(long latencyMs) {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    static final class Customers implements CustomerClient {
+
+        private final long latencyMs;
+        private final Function<Long, CustomerDTO> lookup;
+
+        private Customers(long latencyMs, Function<Long, CustomerDTO> lookup) {
+            this.latencyMs = latencyMs;
+            this.lookup = lookup;
+        }
+
+        @Override
+        public CustomerDTO getCustomer(Long id) {
+            simulateLatency(latencyMs);
+            return lookup.apply(id);
+        }
+
+        @Override
+        public List<CustomerDTO> getCustomers(Collection<Long> ids) {
+            return ids.stream().map(this::getCustomer).toList();
+        }
+    }
+
+    static final class Products implements ProductClient {
+
+        private final long latencyMs;
+        private final Function<Long, ProductDTO> lookup;
+        // Outcome per reservation of a batch; null when the test sends no stock
+        private final Function<StockReservationDTO, ReservationOutcome> reservations;
+
+        private Products(long latencyMs, Function<Long, ProductDTO> lookup,
+                         Function<StockReservationDTO, ReservationOutcome> reservations) {
+            this.latencyMs = latencyMs;
+            this.lookup = lookup;
+            this.reservations = reservations;
+        }
+
+        @Override
+        public ProductDTO getProduct(Long id) {
+            simulateLatency(latencyMs);
+            return lookup.apply(id);
+        }
+
+        @Override
+        public List<ProductDTO> getProducts(Collection<Long> ids) {
+            return ids.stream().map(this::getProduct).toList();
+        }
+
+        @Override
+        public void deductStock(Long id, StockUpdateDTO stockUpdate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void restoreStock(Long id, StockUpdateDTO stockUpdate) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public StockReservationResultDTO reserveStock(StockReservationDTO reservation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<StockReservationOutcomeDTO> reserveStockBatch(List<StockReservationDTO> batch) {
+            if (reservations == null) {
+                throw new UnsupportedOperationException();
+            }
+            simulateLatency(latencyMs);
+            return batch.stream().map(reservation -> {
+                StockReservationOutcomeDTO outcome = new StockReservationOutcomeDTO();
+                outcome.setIdempotencyKey(reservation.getIdempotencyKey());
+                outcome.setOutcome(reservations.apply(reservation));
+                return outcome;
+            }).toList();
+        }
+    }
+}
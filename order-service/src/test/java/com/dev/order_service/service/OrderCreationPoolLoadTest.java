@@ -0,0 +1,227 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.enums.ReservationOutcome;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Connection pool occupancy while creating orders against downstream stubs that answer after a
+ * fixed delay. "before" wraps validation, insert and stock deduction in one outer transaction,
+ * reproducing the previous single-@Transactional method; "after" runs the staged createOrder.
+ * Run with {@code mvn test -Dtest=OrderCreationPoolLoadTest -Dbenchmark=true [-Dcallers=16]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-load;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.maximum-pool-size=8",
+        "spring.datasource.hikari.connection-timeout=30000",
+        "logging.level.com.dev.order_service=WARN",
+        "logging.level.com.dev.order_service.service.OrderCreationPoolLoadTest=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, OrderValidationService.class, OrderLookupContext.class, StockOutboxService.class,
+        OrderStatsService.class, OrderCreationPoolLoadTest.Stubs.class})
+class OrderCreationPoolLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCreationPoolLoadTest.class);
+    private static final long REMOTE_LATENCY_MS = 20;
+    private static final int CALLERS = Integer.getInteger("callers", 16);
+    private static final int ORDERS_PER_CALLER = 10;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockOutboxService stockOutboxService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void stagedCreateOrderKeepsPoolFree() throws Exception {
+        logger.info(String.format("%-7s %10s %12s %12s %14s",
+                "mode", "orders/s", "avg active", "max active", "max waiting"));
+        // Validation, insert and stock deduction all inside one transaction, as createOrder used to run
+        ReflectionTestUtils.setField(orderService, "sendStockInline", false);
+        PoolStats before = run("before", () -> transactionTemplate.execute(status ->
+                stockOutboxService.relayOrder(orderService.createOrder(order()).getOrderId())));
+
+        ReflectionTestUtils.setField(orderService, "sendStockInline", true);
+        PoolStats after = run("after", () -> orderService.createOrder(order()).getStatus());
+
+        assertTrue(after.avgActive < before.avgActive, "staged createOrder should hold fewer connections");
+    }
+
+    private PoolStats run(String mode, Supplier<OrderStatus> createOrder) throws Exception {
+        HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+        createOrder.get();
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        PoolStats stats = new PoolStats();
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                stats.sample(pool.getActiveConnections(), pool.getThreadsAwaitingConnection());
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        sampler.start();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int caller = 0; caller < CALLERS; caller++) {
+            results.add(callers.submit(() -> {
+                int confirmed = 0;
+                for (int i = 0; i < ORDERS_PER_CALLER; i++) {
+                    if (createOrder.get() == OrderStatus.CONFIRMED) {
+                        confirmed++;
+                    }
+                }
+                return confirmed;
+            }));
+        }
+        int confirmed = 0;
+        for (Future<Integer> result : results) {
+            confirmed += result.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        running.set(false);
+        sampler.join();
+        callers.shutdown();
+
+        assertEquals(CALLERS * ORDERS_PER_CALLER, confirmed);
+        logger.info(String.format("%-7s %10.0f %12.2f %12d %14d", mode, confirmed / seconds,
+                stats.avgActive(), stats.maxActive, stats.maxWaiting));
+        stats.avgActive = stats.avgActive();
+        return stats;
+    }
+
+    private static OrderDTO order() {
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(1L);
+        List<OrderItemDTO> items = new ArrayList<>();
+        for (long productId = 1; productId <= 2; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            item.setUnitPrice(BigDecimal.TEN);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(BigDecimal.valueOf(20));
+        return order;
+    }
+
+    private static class PoolStats {
+        private long samples;
+        private long activeTotal;
+        private int maxActive;
+        private int maxWaiting;
+        private double avgActive;
+
+        synchronized void sample(int active, int waiting) {
+            samples++;
+            activeTotal += active;
+            maxActive = Math.max(maxActive, active);
+            maxWaiting = Math.max(maxWaiting, waiting);
+        }
+
+        synchronized double avgActive() {
+            return samples == 0 ? 0 : (double) activeTotal / samples;
+        }
+    }
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        CustomerClient customerClient() {
+            return ClientStubs.customers(REMOTE_LATENCY_MS, id -> ClientStubs.customer(id, true));
+        }
+
+        @Bean
+        ProductClient productClient() {
+            return ClientStubs.products(REMOTE_LATENCY_MS, id -> ClientStubs.product(id, BigDecimal.TEN, 1_000_000),
+                    reservation -> ReservationOutcome.APPLIED);
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor validationExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(CALLERS);
+            executor.setThreadNamePrefix("test-validation-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor remoteCallExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(CALLERS);
+            executor.setThreadNamePrefix("test-remote-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor statsRebuildExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-stats-");
+            return executor;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderSearchResultDTO;
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.OrderItem;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.exception.OrderValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Paging of searchOrders on both the counted and the count-free scroll path: pages must meet
+ * without gaps or overlaps, even across equal sort values, {@code hasNext} must turn false on the
+ * last page, and an order with several lines of the searched product must appear once.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@Import({OrderService.class, OrderValidationService.class, OrderLookupContext.class, StockOutboxService.class,
+        OrderStatsService.class, OrderSearchTest.Stubs.class})
+class OrderSearchTest {
+
+    private static final long CUSTOMER_ID = 1L;
+    private static final long PRODUCT_ID = 42L;
+    private static final int MATCHING_ORDERS = 7;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Long> matchingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < MATCHING_ORDERS; i++) {
+            // Pairs of orders share a timestamp, so only the id tie-breaker keeps page edges stable
+            Order order = order(START.plusHours(i / 2), BigDecimal.valueOf(10 + i));
+            order.getItems().add(item(order, PRODUCT_ID));
+            order.getItems().add(item(order, PRODUCT_ID));
+            order.getItems().add(item(order, PRODUCT_ID + 1));
+            entityManager.persist(order);
+            matchingIds.add(order.getId());
+        }
+        Order other = order(START, BigDecimal.ONE);
+        other.getItems().add(item(other, PRODUCT_ID + 1));
+        entityManager.persist(other);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @ParameterizedTest(name = "includeTotal={0}")
+    @ValueSource(booleans = {false, true})
+    void pagesMeetWithoutGapsOrDuplicates(boolean includeTotal) {
+        Sort sort = Sort.by(Sort.Direction.ASC, "orderDate");
+
+        OrderSearchResultDTO first = search(PageRequest.of(0, 3, sort), includeTotal);
+        OrderSearchResultDTO second = search(PageRequest.of(1, 3, sort), includeTotal);
+        OrderSearchResultDTO last = search(PageRequest.of(2, 3, sort), includeTotal);
+        OrderSearchResultDTO beyond = search(PageRequest.of(3, 3, sort), includeTotal);
+
+        assertEquals(List.of(3, 3, 1, 0), List.of(first.getOrders().size(), second.getOrders().size(),
+                last.getOrders().size(), beyond.getOrders().size()));
+        assertTrue(first.isHasNext());
+        assertTrue(second.isHasNext());
+        assertFalse(last.isHasNext());
+        assertFalse(beyond.isHasNext());
+
+        List<Long> ids = new ArrayList<>();
+        ids.addAll(ids(first));
+        ids.addAll(ids(second));
+        ids.addAll(ids(last));
+        // Ids were assigned in timestamp order, so the tie-broken sort returns them in insert order
+        assertEquals(matchingIds, ids);
+
+        if (includeTotal) {
+            assertEquals(MATCHING_ORDERS, first.getTotalElements());
+        } else {
+            assertNull(first.getTotalElements());
+        }
+    }
+
+    @Test
+    void exactPageMultipleEndsWithoutNext() {
+        OrderSearchResultDTO page = search(PageRequest.of(0, MATCHING_ORDERS), false);
+
+        assertEquals(MATCHING_ORDERS, page.getOrders().size());
+        assertFalse(page.isHasNext());
+    }
+
+    @Test
+    void repeatedProductLinesDoNotRepeatTheOrder() {
+        OrderSearchResultDTO page = search(PageRequest.of(0, 50), true);
+
+        // Each matching order has two lines of the product and must still appear once
+        assertEquals(MATCHING_ORDERS, page.getOrders().size());
+        assertEquals(MATCHING_ORDERS, ids(page).stream().distinct().count());
+        assertEquals(MATCHING_ORDERS, page.getTotalElements());
+        assertEquals(3, page.getOrders().get(0).getItems().size());
+    }
+
+    @Test
+    void sortsOnlyByWhitelistedProperties() {
+        OrderSearchResultDTO byAmount = search(PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "totalAmount")), false);
+        assertEquals(List.of(matchingIds.get(6), matchingIds.get(5), matchingIds.get(4)), ids(byAmount));
+
+        assertThrows(OrderValidationException.class,
+                () -> search(PageRequest.of(0, 3, Sort.by("notes")), false));
+        assertThrows(OrderValidationException.class,
+                () -> search(PageRequest.of(0, 3, Sort.by("items.productId")), false));
+    }
+
+    private OrderSearchResultDTO search(PageRequest pageable, boolean includeTotal) {
+        return orderService.searchOrders(CUSTOMER_ID, null, null, null, null, null, PRODUCT_ID, pageable, includeTotal);
+    }
+
+    private static List<Long> ids(OrderSearchResultDTO result) {
+        return result.getOrders().stream().map(OrderDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Order order(LocalDateTime orderDate, BigDecimal totalAmount) {
+        Order order = new Order();
+        order.setCustomerId(CUSTOMER_ID);
+        order.setCustomerName("Test Customer");
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setOrderDate(orderDate);
+        order.setTotalAmount(totalAmount);
+        return order;
+    }
+
+    private static OrderItem item(Order order, long productId) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setQuantity(1);
+        item.setUnitPrice(BigDecimal.TEN);
+        item.setSubtotal(BigDecimal.TEN);
+        return item;
+    }
+
+    // Every order carries name snapshots, so a search must never reach the remote clients
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        CustomerClient customerClient() {
+            return ClientStubs.unreachableCustomers();
+        }
+
+        @Bean
+        ProductClient productClient() {
+            return ClientStubs.unreachableProducts();
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor validationExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-validation-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor remoteCallExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-remote-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor statsRebuildExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-stats-");
+            return executor;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.dev.order_service.service;
+
+import ch.qos.logback.classic.Level;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.entity.OrderItem;
+import com.dev.order_service.enums.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the in-process steps of the order hot paths: entity/DTO mapping, total
+ * calculation and total validation. Remote lookups are out of scope; the name maps passed to
+ * convertToDTO stand in for their results.
+ * Run with {@code mvn -P benchmark test -Djmh.include=OrderServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    private OrderService orderService;
+    private OrderValidationService orderValidationService;
+    private Order order;
+    private OrderDTO orderDTO;
+    private Map<Long, String> customerNames;
+    private Map<Long, String> productNames;
+
+    @Setup
+    public void setUp() {
+        // The validation service logs every call at INFO; keep console I/O out of the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        // Only the pure mapping and arithmetic methods are exercised, so no collaborators are needed
+        orderService = new OrderService(null, null, null, null, null, null, null, null, null, null, null);
+        orderValidationService = new OrderValidationService(null, null);
+
+        orderDTO = new OrderDTO();
+        orderDTO.setCustomerId(1L);
+        orderDTO.setNotes("Leave at the front desk");
+        customerNames = Map.of(1L, "Test Customer");
+        productNames = new HashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (long productId = 1; productId <= items; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(productId);
+            item.setQuantity((int) (productId % 5) + 1);
+            item.setUnitPrice(new BigDecimal("19.99"));
+            orderDTO.getItems().add(item);
+            total = total.add(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            productNames.put(productId, "Product " + productId);
+        }
+        orderDTO.setTotalAmount(total);
+
+        order = orderService.convertToEntity(orderDTO);
+        order.setId(1L);
+        order.setStatus(OrderStatus.CONFIRMED);
+        order.setOrderDate(LocalDateTime.of(2024, 1, 1, 12, 0));
+        orderService.calculateTotalAmount(order);
+        long itemId = 1;
+        for (OrderItem item : order.getItems()) {
+            item.setId(itemId++);
+        }
+    }
+
+    @Benchmark
+    public OrderDTO convertToDTO() {
+        return orderService.convertToDTO(order, customerNames, productNames);
+    }
+
+    @Benchmark
+    public Order convertToEntity() {
+        return orderService.convertToEntity(orderDTO);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotalAmount() {
+        orderService.calculateTotalAmount(order);
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public OrderDTO validateTotalAmount() {
+        orderValidationService.validateTotalAmount(orderDTO);
+        return orderDTO;
+    }
+}
@@ -0,0 +1,215 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.OrderConfirmationDTO;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderDailyStatsDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.entity.Order;
+import com.dev.order_service.enums.OrderStatus;
+import com.dev.order_service.enums.ReservationOutcome;
+import com.dev.order_service.exception.OrderValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The rollups maintained by order creation, stock outcomes and cancellation must equal what a
+ * rebuild from the orders table computes. Orders are created through OrderService against stubs
+ * that confirm most stock deductions and reject those for one product.
+ */
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:order-stats;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "logging.level.com.dev.order_service=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, OrderValidationService.class, OrderLookupContext.class, StockOutboxService.class,
+        OrderStatsService.class, OrderStatsInvariantTest.Stubs.class})
+class OrderStatsInvariantTest {
+
+    private static final long REJECTED_PRODUCT_ID = 3L;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void liveRollupsMatchARebuild() {
+        List<Long> confirmed = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            long productId = i % 4 == 0 ? REJECTED_PRODUCT_ID : 1 + i % 2;
+            OrderConfirmationDTO confirmation = orderService.createOrder(order(productId, i));
+            if (confirmation.getStatus() == OrderStatus.CONFIRMED) {
+                confirmed.add(confirmation.getOrderId());
+            }
+        }
+        orderService.cancelOrder(confirmed.get(0));
+        orderService.cancelOrder(confirmed.get(1));
+
+        // Orders are stamped with the current time, which may have crossed midnight
+        LocalDate startDate = LocalDate.now().minusDays(1);
+        LocalDate endDate = LocalDate.now();
+        List<String> live = rollups(startDate, endDate);
+        assertTrue(live.stream().anyMatch(row -> row.contains(" CONFIRMED ")), live::toString);
+        assertTrue(live.stream().anyMatch(row -> row.contains(" FAILED ")), live::toString);
+        assertTrue(live.stream().anyMatch(row -> row.contains(" CANCELLED ")), live::toString);
+
+        assertEquals(2, orderStatsService.rebuild(startDate, endDate));
+
+        assertEquals(live, rollups(startDate, endDate));
+    }
+
+    @Test
+    void changesOfATransactionAreSummedAndWrittenAtCommit() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        Order order = new Order();
+        order.setOrderDate(day.atTime(12, 0));
+        order.setTotalAmount(BigDecimal.TEN);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderStatsService.recordCreated(pending(order));
+            orderStatsService.recordCreated(pending(order));
+            orderStatsService.recordTransition(order, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+            orderStatsService.recordTransition(order, OrderStatus.PENDING, OrderStatus.CONFIRMED);
+            orderStatsService.recordTransition(order, OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+            assertEquals(List.of(), orderStatsService.getDailyStats(day, day));
+        });
+
+        // PENDING went up and down by two, so its row was never written
+        List<String> committed = List.of(day + " CANCELLED 1 10.00", day + " CONFIRMED 1 10.00");
+        assertEquals(committed, rollups(day));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            orderStatsService.recordTransition(order, OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+            status.setRollbackOnly();
+        });
+        assertEquals(committed, rollups(day));
+    }
+
+    @Test
+    void rebuildRangeIsBounded() {
+        LocalDate startDate = LocalDate.of(2024, 1, 1);
+
+        assertThrows(OrderValidationException.class,
+                () -> orderStatsService.startRebuild(startDate, startDate.plusDays(366)));
+        assertThrows(OrderValidationException.class,
+                () -> orderStatsService.startRebuild(startDate, startDate.minusDays(1)));
+    }
+
+    // A status the live path moved every order out of keeps a zero row; a rebuild writes no row for it
+    private List<String> rollups(LocalDate startDate, LocalDate endDate) {
+        return orderStatsService.getDailyStats(startDate, endDate).stream()
+                .filter(stats -> stats.getOrderCount() != 0)
+                .map(OrderStatsInvariantTest::describe)
+                .collect(Collectors.toList());
+    }
+
+    // Every row of the day, zero rows included
+    private List<String> rollups(LocalDate day) {
+        return orderStatsService.getDailyStats(day, day).stream()
+                .map(OrderStatsInvariantTest::describe)
+                .collect(Collectors.toList());
+    }
+
+    private static String describe(OrderDailyStatsDTO stats) {
+        return stats.getDate() + " " + stats.getStatus() + " " + stats.getOrderCount() + " "
+                + stats.getRevenue().setScale(2);
+    }
+
+    private static Order pending(Order order) {
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+
+    private static OrderDTO order(long productId, int quantity) {
+        OrderItemDTO item = new OrderItemDTO();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal("2.50"));
+
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(1L);
+        order.setItems(List.of(item));
+        order.setTotalAmount(item.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+        return order;
+    }
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        CustomerClient customerClient() {
+            return ClientStubs.customers(0, id -> ClientStubs.customer(id, true));
+        }
+
+        @Bean
+        ProductClient productClient() {
+            return ClientStubs.products(0, id -> ClientStubs.product(id, new BigDecimal("2.50"), 1_000),
+                    reservation -> reservation.getItems().stream()
+                            .anyMatch(item -> item.getProductId() == REJECTED_PRODUCT_ID)
+                            ? ReservationOutcome.REJECTED : ReservationOutcome.APPLIED);
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor validationExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-validation-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor remoteCallExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-remote-");
+            return executor;
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor statsRebuildExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(2);
+            executor.setThreadNamePrefix("test-stats-");
+            return executor;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.dev.order_service.service;
+
+import com.dev.order_service.client.CustomerClient;
+import com.dev.order_service.client.ProductClient;
+import com.dev.order_service.dto.OrderDTO;
+import com.dev.order_service.dto.OrderItemDTO;
+import com.dev.order_service.exception.OrderValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sequential and parallel order validation against stubbed downstream services that answer every
+ * lookup after a fixed delay. The latency comparison depends on wall-clock time, so it only runs
+ * with {@code mvn test -Dtest=OrderValidationServiceLatencyTest -Dbenchmark=true}.
+ */
+class OrderValidationServiceLatencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderValidationServiceLatencyTest.class);
+    private static final long REMOTE_LATENCY_MS = 20;
+    private static final int RUNS = 5;
+    private static final long INACTIVE_CUSTOMER_ID = 99L;
+    private static final int STOCK = 100;
+
+    private ThreadPoolTaskExecutor executor;
+    private OrderValidationService validationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(32);
+        executor.setMaxPoolSize(32);
+        executor.setThreadNamePrefix("test-validation-");
+        executor.initialize();
+
+        OrderLookupContext lookupContext = new OrderLookupContext(customers(), products(), new SimpleMeterRegistry());
+        validationService = new OrderValidationService(lookupContext, executor);
+    }
+
+    private OrderValidationService validationService(CustomerClient customerClient, ProductClient productClient) {
+        OrderLookupContext lookupContext = new OrderLookupContext(customerClient, productClient, new SimpleMeterRegistry());
+        OrderValidationService service = new OrderValidationService(lookupContext, executor);
+        ReflectionTestUtils.setField(service, "parallelValidation", true);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void parallelValidationLatencyDoesNotGrowWithLineCount() {
+        logger.info(String.format("%-6s %14s %14s", "items", "sequential ms", "parallel ms"));
+        for (int items : new int[]{1, 10, 50}) {
+            OrderDTO order = orderWithItems(items, 1);
+            long sequential = medianMillis(order, false);
+            long parallel = medianMillis(order, true);
+            logger.info(String.format("%-6d %14d %14d", items, sequential, parallel));
+
+            if (items > 1) {
+                assertTrue(parallel < sequential,
+                        "parallel validation should beat sequential for " + items + " items");
+            }
+        }
+    }
+
+    @Test
+    void parallelValidationKeepsExistingFailureMessages() {
+        ReflectionTestUtils.setField(validationService, "parallelValidation", true);
+        OrderDTO order = orderWithItems(10, STOCK + 1);
+
+        OrderValidationException exception =
+                assertThrows(OrderValidationException.class, () -> validationService.validateOrder(order));
+        assertTrue(exception.getMessage().startsWith("Failed to validate product: Insufficient stock for product"),
+                exception.getMessage());
+    }
+
+    @Test
+    void parallelValidationRejectsInactiveCustomer() {
+        ReflectionTestUtils.setField(validationService, "parallelValidation", true);
+        OrderDTO order = orderWithItems(5, 1);
+        order.setCustomerId(INACTIVE_CUSTOMER_ID);
+
+        OrderValidationException exception =
+                assertThrows(OrderValidationException.class, () -> validationService.validateOrder(order));
+        assertEquals("Failed to validate customer: Customer account is not active", exception.getMessage());
+    }
+
+    @Test
+    void parallelValidationCancelsChecksStillInFlight() throws InterruptedException {
+        int items = 5;
+        CountDownLatch started = new CountDownLatch(items);
+        CountDownLatch interrupted = new CountDownLatch(items);
+        // Every product lookup blocks until cancelled; the customer check fails once they all run
+        ProductClient blockingProducts = ClientStubs.products(0, id -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Cancelled");
+        }, null);
+        CustomerClient inactiveCustomer = ClientStubs.customers(0, id -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ClientStubs.customer(INACTIVE_CUSTOMER_ID, false);
+        });
+
+        OrderValidationException exception = assertThrows(OrderValidationException.class,
+                () -> validationService(inactiveCustomer, blockingProducts).validateOrder(orderWithItems(items, 1)));
+        assertEquals("Failed to validate customer: Customer account is not active", exception.getMessage());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "product checks still in flight should be cancelled");
+    }
+
+    private long medianMillis(OrderDTO order, boolean parallel) {
+        ReflectionTestUtils.setField(validationService, "parallelValidation", parallel);
+        validationService.validateOrder(order);
+
+        long[] samples = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            validationService.validateOrder(order);
+            samples[run] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+
+    private static OrderDTO orderWithItems(int itemCount, int quantity) {
+        OrderDTO order = new OrderDTO();
+        order.setCustomerId(1L);
+        List<OrderItemDTO> items = new java.util.ArrayList<>();
+        for (long productId = 1; productId <= itemCount; productId++) {
+            OrderItemDTO item = new OrderItemDTO();
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            item.setUnitPrice(BigDecimal.TEN);
+            items.add(item);
+        }
+        order.setItems(items);
+        order.setTotalAmount(BigDecimal.TEN.multiply(BigDecimal.valueOf((long) itemCount * quantity)));
+        return order;
+    }
+
+    private static CustomerClient customers() {
+        return ClientStubs.customers(REMOTE_LATENCY_MS, id -> ClientStubs.customer(id, id != INACTIVE_CUSTOMER_ID));
+    }
+
+    private static ProductClient products() {
+        return ClientStubs.products(REMOTE_LATENCY_MS, id -> ClientStubs.product(id, BigDecimal.TEN, STOCK), null);
+    }
+}
@@ -0,0 +1,115 @@
+package com.dev.product_service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Catalog version counter behind the cached, conditional catalog pages. Every product change
+ * takes the next version and records it as the last change of the product's id segment
+ * (product.catalog.segment-span ids), and an insert also as the last change of the tail. A
+ * page's version is the last change among the segments it covers, plus the tail for the last
+ * page, so it only moves when something on that page may have changed.
+ */
+@Component
+public class CatalogVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogVersions.class);
+    private static final String VERSION_KEY = "product-catalog:version";
+    private static final String SEGMENTS_KEY = "product-catalog:segments";
+    private static final String TAIL_FIELD = "tail";
+    // A page of ids further apart than this many segments is versioned by the whole catalog instead
+    private static final int MAX_PAGE_SEGMENTS = 256;
+
+    private final RedisScript<Long> touchScript =
+            RedisScript.of(new ClassPathResource("scripts/catalog-touch.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${product.catalog.segment-span:1000}")
+    private long segmentSpan;
+
+    public CatalogVersions(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    public long current() {
+        String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return version != null ? Long.parseLong(version) : 0;
+    }
+
+    // Version of the last change to the ids after afterId up to lastId, and past lastId too when tail is set
+    public long changedAt(long afterId, long lastId, boolean tail) {
+        List<Object> fields = new ArrayList<>();
+        // afterId + 1 cannot overflow below lastId, and an empty range has no segments
+        if (afterId < lastId) {
+            long first = segmentOf(afterId + 1);
+            long span = segmentOf(lastId) - first;
+            // Negative only when the difference itself overflowed
+            if (span < 0 || span >= MAX_PAGE_SEGMENTS) {
+                return current();
+            }
+            for (long i = 0; i <= span; i++) {
+                fields.add(Long.toString(first + i));
+            }
+        }
+        if (tail) {
+            fields.add(TAIL_FIELD);
+        }
+        if (fields.isEmpty()) {
+            return 0;
+        }
+        List<Object> versions = stringRedisTemplate.opsForHash().multiGet(SEGMENTS_KEY, fields);
+        return versions.stream()
+                .filter(version -> version != null)
+                .mapToLong(version -> Long.parseLong(version.toString()))
+                .max()
+                .orElse(0);
+    }
+
+    public void touch(Collection<Long> productIds, boolean inserted) {
+        List<String> segments = productIds.stream()
+                .map(this::segmentOf)
+                .distinct()
+                .map(String::valueOf)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (inserted) {
+            segments.add(TAIL_FIELD);
+        }
+        // Within a transaction only once it commits, so a page read before then is not tagged with a change it lacks
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(segments);
+                }
+            });
+        } else {
+            bump(segments);
+        }
+    }
+
+    private void bump(List<String> segments) {
+        try {
+            stringRedisTemplate.execute(touchScript, List.of(VERSION_KEY, SEGMENTS_KEY), segments.toArray());
+        } catch (Exception e) {
+            // Pages of these segments stay as they were until their cache entries expire
+            logger.warn("Failed to bump catalog version of segments {}: {}", segments, e.getMessage());
+        }
+    }
+
+    private long segmentOf(long productId) {
+        return Math.floorDiv(productId, segmentSpan);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dev.product_service.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    // Boot's default scheduler, configured from spring.task.scheduling.*; declared here because it backs off
+    // once any other scheduler bean exists, and @Scheduled methods without a scheduler fall back to this name
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    // The stock hold expiry tick gets a thread of its own, so a slow ledger flush, sweep or rebalance on the
+    // default scheduler's single thread does not hold back expiries
+    @Bean
+    public ThreadPoolTaskScheduler holdExpiryScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("hold-expiry-");
+        return scheduler;
+    }
+}
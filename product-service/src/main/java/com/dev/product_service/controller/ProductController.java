@@ -2,8 +2,17 @@ package com.dev.product_service.controller;
 
 
 import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.ProductPageDTO;
+import com.dev.product_service.dto.StockHoldDTO;
+import com.dev.product_service.dto.StockHoldRequestDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationOutcomeDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
 import com.dev.product_service.dto.StockUpdateDTO;
 import com.dev.product_service.service.ProductService;
+import com.dev.product_service.service.StockHoldService;
+import com.dev.product_service.service.StockLedgerService;
+import com.dev.product_service.service.StockReservationBatchService;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -19,6 +28,9 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final StockReservationBatchService stockReservationBatchService;
+    private final StockLedgerService stockLedgerService;
+    private final StockHoldService stockHoldService;
 
     @GetMapping("/{id}")
     @RateLimiter(name = "productService")
@@ -26,10 +38,20 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProduct(id));
     }
 
+    // Pages by id: pass the previous page's nextCursor as cursor. The ETag makes an If-None-Match request a 304
     @GetMapping
     @RateLimiter(name = "productService")
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<ProductPageDTO> getProductPage(
+            @RequestParam(defaultValue = "0") long cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        ProductPageDTO page = productService.getProductPage(cursor, size);
+        return ResponseEntity.ok().eTag("\"" + page.getVersion() + "\"").body(page);
+    }
+
+    @GetMapping(params = "ids")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<List<ProductDTO>> getProducts(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.getProducts(ids));
     }
 
     @PostMapping
@@ -56,14 +78,66 @@ public class ProductController {
     @PostMapping("/{id}/deduct-stock")
     @RateLimiter(name = "productService")
     public ResponseEntity<Void> deductStock(@RequestBody StockUpdateDTO stockUpdate, @PathVariable String id) {
-        productService.deductStock(stockUpdate);
+        if (stockLedgerService.isEnabled()) {
+            stockLedgerService.deductStock(stockUpdate);
+        } else {
+            productService.deductStock(stockUpdate);
+        }
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/{id}/restore-stock")
     @RateLimiter(name = "productService")
     public ResponseEntity<Void> restoreStock(@RequestBody StockUpdateDTO stockUpdate, @PathVariable String id) {
-        productService.restoreStock(stockUpdate);
+        if (stockLedgerService.isEnabled()) {
+            stockLedgerService.restoreStock(stockUpdate);
+        } else {
+            productService.restoreStock(stockUpdate);
+        }
         return ResponseEntity.ok().build();
     }
+
+    @PutMapping("/{id}/stock-stripes")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<ProductDTO> configureStockStripes(@PathVariable Long id, @RequestParam int stripes) {
+        return ResponseEntity.ok(productService.configureStockStripes(id, stripes));
+    }
+
+    @PostMapping("/stock/reservations")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<StockReservationResultDTO> reserveStock(@RequestBody StockReservationDTO reservation) {
+        return ResponseEntity.ok(stockLedgerService.isEnabled()
+                ? stockLedgerService.reserveStock(reservation)
+                : productService.reserveStock(reservation));
+    }
+
+    @PostMapping("/stock/reservations/batch")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<List<StockReservationOutcomeDTO>> reserveStockBatch(@RequestBody List<StockReservationDTO> reservations) {
+        return ResponseEntity.ok(stockReservationBatchService.reserveStock(reservations));
+    }
+
+    @PostMapping("/stock/holds")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<StockHoldDTO> holdStock(@RequestBody StockHoldRequestDTO request) {
+        return new ResponseEntity<>(stockHoldService.hold(request), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/stock/holds/{holdId}")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<StockHoldDTO> getStockHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(stockHoldService.getHold(holdId));
+    }
+
+    @PostMapping("/stock/holds/{holdId}/confirm")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<StockHoldDTO> confirmStockHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(stockHoldService.confirm(holdId));
+    }
+
+    @PostMapping("/stock/holds/{holdId}/release")
+    @RateLimiter(name = "productService")
+    public ResponseEntity<StockHoldDTO> releaseStockHold(@PathVariable String holdId) {
+        return ResponseEntity.ok(stockHoldService.release(holdId));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.dev.product_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ProductPageDTO {
+    private List<ProductDTO> items = new ArrayList<>();
+    // Cursor of the next page; null on the last one
+    private Long nextCursor;
+    // Catalog version of the last change to this page's products, sent as its ETag
+    private long version;
+}
@@ -0,0 +1,13 @@
+package com.dev.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockLevelDTO {
+    private Long productId;
+    private Integer stockQuantity;
+}
@@ -0,0 +1,16 @@
+package com.dev.product_service.dto;
+
+import com.dev.product_service.enums.StockHoldStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockHoldDTO {
+    private String id;
+    private StockHoldStatus status;
+    private LocalDateTime expiresAt;
+    private List<StockUpdateDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.dev.product_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockHoldRequestDTO {
+    // Optional; a retried request with the same id returns the hold placed the first time
+    private String holdId;
+    // Optional; product.stock.holds.default-ttl-s when missing
+    private Integer ttlSeconds;
+    private List<StockUpdateDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.dev.product_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockItemResultDTO {
+    private Long productId;
+    private Integer quantity;
+    private Integer remainingStock;
+}
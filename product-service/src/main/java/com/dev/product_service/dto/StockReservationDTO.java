@@ -0,0 +1,15 @@
+package com.dev.product_service.dto;
+
+import com.dev.product_service.enums.StockOperation;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockReservationDTO {
+    // Optional; a reservation with a key that was already applied is not applied again
+    private String idempotencyKey;
+    private StockOperation operation;
+    private List<StockUpdateDTO> items = new ArrayList<>();
+}
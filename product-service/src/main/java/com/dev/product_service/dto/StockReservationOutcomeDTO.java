@@ -0,0 +1,13 @@
+package com.dev.product_service.dto;
+
+import com.dev.product_service.enums.ReservationOutcome;
+import lombok.Data;
+
+// Result of one reservation in a batch; result is set for APPLIED and DUPLICATE, message for REJECTED
+@Data
+public class StockReservationOutcomeDTO {
+    private String idempotencyKey;
+    private ReservationOutcome outcome;
+    private String message;
+    private StockReservationResultDTO result;
+}
@@ -0,0 +1,15 @@
+package com.dev.product_service.dto;
+
+import com.dev.product_service.enums.StockOperation;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class StockReservationResultDTO {
+    private StockOperation operation;
+    // True when the idempotency key had already been applied; remainingStock is then the current stock
+    private boolean duplicate;
+    private List<StockItemResultDTO> items = new ArrayList<>();
+}
@@ -2,6 +2,7 @@ package com.dev.product_service.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Formula;
 import java.math.BigDecimal;
 
 @Entity
@@ -26,6 +27,14 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    // 0: all stock is in stockQuantity; otherwise it is spread over that many product_stock_stripes rows
+    @Column(nullable = false)
+    private Integer stockStripes = 0;
+
+    // stockQuantity plus the stripes, as of loading
+    @Formula("stock_quantity + coalesce((select sum(s.quantity) from product_stock_stripes s where s.product_id = id), 0)")
+    private Integer availableStock;
+
     @Version
     private Long version;  // For optimistic locking
 }
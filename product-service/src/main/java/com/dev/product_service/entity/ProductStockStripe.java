@@ -0,0 +1,20 @@
+package com.dev.product_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// One slice of a striped product's stock
+@Entity
+@Table(name = "product_stock_stripes")
+@IdClass(ProductStockStripeId.class)
+@Data
+public class ProductStockStripe {
+    @Id
+    private Long productId;
+
+    @Id
+    private Integer stripe;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,15 @@
+package com.dev.product_service.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductStockStripeId implements Serializable {
+    private Long productId;
+    private Integer stripe;
+}
@@ -0,0 +1,28 @@
+package com.dev.product_service.entity;
+
+import com.dev.product_service.enums.StockHoldStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Stock taken from products until it is confirmed, released or expires
+@Entity
+@Table(name = "stock_holds")
+@Data
+public class StockHold {
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockHoldStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
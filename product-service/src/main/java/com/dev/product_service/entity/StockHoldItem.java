@@ -0,0 +1,20 @@
+package com.dev.product_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Quantity of one product taken by a hold
+@Entity
+@Table(name = "stock_hold_items")
+@IdClass(StockHoldItemId.class)
+@Data
+public class StockHoldItem {
+    @Id
+    private String holdId;
+
+    @Id
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
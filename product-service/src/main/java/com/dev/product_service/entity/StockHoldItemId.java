@@ -0,0 +1,15 @@
+package com.dev.product_service.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockHoldItemId implements Serializable {
+    private String holdId;
+    private Long productId;
+}
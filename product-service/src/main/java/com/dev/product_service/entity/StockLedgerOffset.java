@@ -0,0 +1,16 @@
+package com.dev.product_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Last stock ledger stream entry applied to the products table
+@Entity
+@Table(name = "stock_ledger_offsets")
+@Data
+public class StockLedgerOffset {
+    @Id
+    private String stream;
+
+    @Column(nullable = false, length = 40)
+    private String lastId;
+}
@@ -0,0 +1,23 @@
+package com.dev.product_service.entity;
+
+import com.dev.product_service.enums.StockOperation;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Record of an applied reservation, keyed by the caller's idempotency key
+@Entity
+@Table(name = "stock_reservations")
+@Data
+public class StockReservation {
+    @Id
+    private String idempotencyKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockOperation operation;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
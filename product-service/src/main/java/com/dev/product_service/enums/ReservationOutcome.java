@@ -0,0 +1,7 @@
+package com.dev.product_service.enums;
+
+public enum ReservationOutcome {
+    APPLIED,
+    DUPLICATE,
+    REJECTED
+}
@@ -0,0 +1,8 @@
+package com.dev.product_service.enums;
+
+public enum StockHoldStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,12 @@
+package com.dev.product_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ProductValidationException extends RuntimeException {
+
+    public ProductValidationException(String message) {
+        super(message);
+    }
+}
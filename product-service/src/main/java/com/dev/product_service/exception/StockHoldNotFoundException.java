@@ -0,0 +1,13 @@
+package com.dev.product_service.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StockHoldNotFoundException extends RuntimeException {
+
+    public StockHoldNotFoundException(String holdId) {
+        super(String.format("Stock hold not found with id: %s", holdId));
+    }
+}
@@ -1,16 +1,20 @@
 package com.dev.product_service.repository;
 
 
+import com.dev.product_service.dto.ProductStockLevelDTO;
 import com.dev.product_service.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,31 +26,70 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     @Query("SELECT p FROM Product p WHERE p.sku = :sku")
     Optional<Product> findBySkuWithLock(@Param("sku") String sku);
 
-    // Find products with stock below threshold
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity <= :threshold")
+    // Lock a set of products in ascending id order so concurrent multi-item reservations cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInOrderByIdWithLock(@Param("ids") Collection<Long> ids);
+
+    // Deducts in one statement, only while enough stock is left; returns the new level, or null when no row changed.
+    // Striped products are left to StripedStockService.
+    @Transactional
+    @Query(value = "UPDATE products SET stock_quantity = stock_quantity - :quantity, version = version + 1 " +
+            "WHERE id = :id AND stock_stripes = 0 AND stock_quantity >= :quantity RETURNING stock_quantity",
+            nativeQuery = true)
+    Integer deductStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Returns the new level, or null when the product does not exist or is striped
+    @Transactional
+    @Query(value = "UPDATE products SET stock_quantity = stock_quantity + :quantity, version = version + 1 " +
+            "WHERE id = :id AND stock_stripes = 0 RETURNING stock_quantity", nativeQuery = true)
+    Integer restoreStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Null when the product does not exist
+    @Query("SELECT p.stockStripes FROM Product p WHERE p.id = :id")
+    Integer findStockStripesById(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Product p WHERE p.stockStripes > 0")
+    List<Long> findStripedProductIds();
+
+    // Keyset page of stock levels (stripes included), for loading the stock ledger
+    @Query("SELECT new com.dev.product_service.dto.ProductStockLevelDTO(p.id, p.availableStock) FROM Product p " +
+            "WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductStockLevelDTO> findStockLevelsAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT new com.dev.product_service.dto.ProductStockLevelDTO(p.id, p.availableStock) FROM Product p " +
+            "WHERE p.id IN :ids")
+    List<ProductStockLevelDTO> findStockLevels(@Param("ids") Collection<Long> ids);
+
+    // Find products with stock below threshold (stripes included)
+    @Query("SELECT p FROM Product p WHERE p.availableStock <= :threshold")
     List<Product> findProductsWithLowStock(@Param("threshold") Integer threshold);
 
     // Find products by price range
     List<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
 
     // Find products with stock greater than zero
-    List<Product> findByStockQuantityGreaterThan(Integer quantity);
+    List<Product> findByAvailableStockGreaterThan(Integer quantity);
 
     // Find by exact SKU
     Optional<Product> findBySku(String sku);
 
+    // Find the next page of products after an id
+    List<Product> findByIdGreaterThanOrderById(Long id, Limit limit);
+
     // Check if SKU exists
     boolean existsBySku(String sku);
 
     // Find products by stock quantity less than or equal to
-    List<Product> findByStockQuantityLessThanEqual(Integer quantity);
+    List<Product> findByAvailableStockLessThanEqual(Integer quantity);
 
     // Custom query to find products and order by stock quantity
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity > 0 ORDER BY p.stockQuantity ASC")
+    @Query("SELECT p FROM Product p WHERE p.availableStock > 0 ORDER BY p.availableStock ASC")
     List<Product> findAvailableProductsOrderByStock();
 
     // Native query example for complex stock analysis
-    @Query(value = "SELECT * FROM products p WHERE p.stock_quantity > 0 AND p.price <= :maxPrice",
+    @Query(value = "SELECT * FROM products p WHERE p.price <= :maxPrice AND p.stock_quantity + " +
+            "coalesce((SELECT sum(s.quantity) FROM product_stock_stripes s WHERE s.product_id = p.id), 0) > 0",
             nativeQuery = true)
     List<Product> findAvailableProductsWithinPrice(@Param("maxPrice") BigDecimal maxPrice);
 
@@ -55,6 +98,6 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     void updateStockQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
 
     // Count products with zero stock
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stockQuantity = 0")
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.availableStock = 0")
     long countOutOfStockProducts();
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.dev.product_service.repository;
+
+import com.dev.product_service.entity.ProductStockStripe;
+import com.dev.product_service.entity.ProductStockStripeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+public interface ProductStockStripeRepository extends JpaRepository<ProductStockStripe, ProductStockStripeId> {
+
+    // Takes the whole quantity from one stripe if it holds enough; returns what is left there, or null when it does not
+    @Query(value = "UPDATE product_stock_stripes SET quantity = quantity - :quantity " +
+            "WHERE product_id = :productId AND stripe = :stripe AND quantity >= :quantity RETURNING quantity",
+            nativeQuery = true)
+    Integer takeStock(@Param("productId") Long productId, @Param("stripe") int stripe, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductStockStripe s SET s.quantity = s.quantity + :quantity " +
+            "WHERE s.productId = :productId AND s.stripe = :stripe")
+    int addStock(@Param("productId") Long productId, @Param("stripe") int stripe, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("UPDATE ProductStockStripe s SET s.quantity = 0 WHERE s.productId = :productId")
+    int emptyStripes(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM ProductStockStripe s WHERE s.productId = :productId AND s.stripe >= :stripe")
+    int deleteFromStripe(@Param("productId") Long productId, @Param("stripe") int stripe);
+
+    List<ProductStockStripe> findByProductIdOrderByStripe(Long productId);
+
+    // Locks in stripe order; callers lock the product row first
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProductStockStripe s WHERE s.productId = :productId ORDER BY s.stripe")
+    List<ProductStockStripe> findByProductIdWithLock(@Param("productId") Long productId);
+}
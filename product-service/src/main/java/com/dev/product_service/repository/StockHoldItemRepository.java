@@ -0,0 +1,17 @@
+package com.dev.product_service.repository;
+
+import com.dev.product_service.entity.StockHoldItem;
+import com.dev.product_service.entity.StockHoldItemId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockHoldItemRepository extends JpaRepository<StockHoldItem, StockHoldItemId> {
+
+    List<StockHoldItem> findByHoldId(String holdId);
+
+    List<StockHoldItem> findByHoldIdIn(Collection<String> holdIds);
+}
@@ -0,0 +1,39 @@
+package com.dev.product_service.repository;
+
+import com.dev.product_service.entity.StockHold;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, String> {
+
+    // Moves the holds still outstanding (and, with expiredOnly, past their expiry) to the given status in one
+    // statement; returns the ids it moved, which are the only ones whose stock may be given back
+    @Query(value = "UPDATE stock_holds SET status = :status, updated_at = :now " +
+            "WHERE id IN (:ids) AND status = 'HELD' AND (:expiredOnly = FALSE OR expires_at <= :now) RETURNING id",
+            nativeQuery = true)
+    List<String> claim(@Param("ids") Collection<String> ids, @Param("status") String status,
+                       @Param("now") LocalDateTime now, @Param("expiredOnly") boolean expiredOnly);
+
+    // Returns the id when the hold was outstanding and not yet expired, or null
+    @Query(value = "UPDATE stock_holds SET status = 'CONFIRMED', updated_at = :now " +
+            "WHERE id = :id AND status = 'HELD' AND expires_at > :now RETURNING id",
+            nativeQuery = true)
+    String confirm(@Param("id") String id, @Param("now") LocalDateTime now);
+
+    @Query("SELECT h.id FROM StockHold h WHERE h.status = com.dev.product_service.enums.StockHoldStatus.HELD " +
+            "AND h.expiresAt <= :now ORDER BY h.expiresAt")
+    List<String> findExpiredIds(@Param("now") LocalDateTime now, Limit limit);
+
+    // Keyset page of outstanding holds, for scheduling them again after a restart
+    @Query("SELECT h FROM StockHold h WHERE h.status = com.dev.product_service.enums.StockHoldStatus.HELD " +
+            "AND h.id > :afterId ORDER BY h.id")
+    List<StockHold> findHeldAfter(@Param("afterId") String afterId, Limit limit);
+}
@@ -0,0 +1,20 @@
+package com.dev.product_service.repository;
+
+import com.dev.product_service.entity.StockLedgerOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface StockLedgerOffsetRepository extends JpaRepository<StockLedgerOffset, String> {
+
+    // Held while a flush applies its batch, so concurrent flushers never apply an entry twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StockLedgerOffset o WHERE o.stream = :stream")
+    Optional<StockLedgerOffset> findByStreamWithLock(@Param("stream") String stream);
+}
@@ -0,0 +1,22 @@
+package com.dev.product_service.repository;
+
+import com.dev.product_service.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, String> {
+
+    // Deletes up to limit keys recorded before the cutoff, oldest first, using the created_at index
+    @Modifying
+    @Query(value = "DELETE FROM stock_reservations WHERE idempotency_key IN (" +
+            "SELECT idempotency_key FROM stock_reservations WHERE created_at < :cutoff " +
+            "ORDER BY created_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -1,92 +1,389 @@
 package com.dev.product_service.service;
 
 
+import com.dev.product_service.cache.CatalogVersions;
 import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.ProductPageDTO;
+import com.dev.product_service.dto.StockItemResultDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
 import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.enums.StockOperation;
 import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.ProductValidationException;
 import com.dev.product_service.exception.StockUpdateException;
 import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.StockReservation;
 import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.ProductStockStripeRepository;
+import com.dev.product_service.repository.StockReservationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    // Width of stock_reservations.idempotency_key
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+
     private final ProductRepository productRepository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheManager cacheManager;
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductStockStripeRepository productStockStripeRepository;
+    private final StripedStockService stripedStockService;
+    private final StockLedgerService stockLedgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersions catalogVersions;
+
+    @Value("${product.catalog.page-size.max:500}")
+    private int maxPageSize;
 
-    @Cacheable(value = "products", key = "#id", unless = "#result == null")
+    // sync: concurrent misses for one id share a single database load
+    @Cacheable(value = "products", key = "#id", sync = true)
     public ProductDTO getProduct(Long id) {
-        return convertToDTO(productRepository.findById(id)
+        ProductDTO product = convertToDTO(productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id)));
+        if (stockLedgerService.isEnabled()) {
+            stockLedgerService.applyLevels(List.of(product));
+        }
+        return product;
     }
 
-    @Cacheable(value = "products", unless = "#result.isEmpty()")
-    public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(this::convertToDTO)
+    // Batch lookup: one Redis multi-get for the cached ids, one query for the misses
+    public List<ProductDTO> getProducts(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> cacheKeys = distinctIds.stream()
+                .map(id -> "products::" + id)
+                .collect(Collectors.toList());
+        List<Object> cached = redisTemplate.opsForValue().multiGet(cacheKeys);
+
+        Map<Long, ProductDTO> products = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            Object value = cached != null ? cached.get(i) : null;
+            if (value instanceof ProductDTO product) {
+                products.put(distinctIds.get(i), product);
+            } else {
+                misses.add(distinctIds.get(i));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Cache cache = cacheManager.getCache("products");
+            List<ProductDTO> loaded = productRepository.findAllById(misses).stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+            if (stockLedgerService.isEnabled()) {
+                stockLedgerService.applyLevels(loaded);
+            }
+            loaded.forEach(dto -> {
+                products.put(dto.getId(), dto);
+                if (cache != null) {
+                    cache.put(dto.getId(), dto);
+                }
+            });
+        }
+
+        // Preserve request order; unknown ids are simply left out
+        return distinctIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of the catalog in id order, after the given cursor. Each page is cached on its own and
+     * served while the catalog version of the last change to the products it covers is unchanged, so a
+     * change only reloads its own page, and an insert the last one.
+     */
+    public ProductPageDTO getProductPage(long cursor, int size) {
+        if (cursor < 0) {
+            throw new ProductValidationException("Catalog cursor must not be negative: " + cursor);
+        }
+        int pageSize = Math.min(Math.max(size, 1), maxPageSize);
+        Cache pages = cacheManager.getCache("product-pages");
+        String key = cursor + ":" + pageSize;
+        ProductPageDTO cached = pages != null ? pages.get(key, ProductPageDTO.class) : null;
+        if (cached != null && cached.getVersion() == pageVersion(cached, cursor)) {
+            return cached;
+        }
+
+        // Read first: a change committed after this is bumped after it too, and shows in the page version below
+        long readAt = catalogVersions.current();
+        ProductPageDTO page = new ProductPageDTO();
+        page.setItems(productRepository.findByIdGreaterThanOrderById(cursor, Limit.of(pageSize)).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList()));
+        if (stockLedgerService.isEnabled()) {
+            stockLedgerService.applyLevels(page.getItems());
+        }
+        if (page.getItems().size() == pageSize) {
+            page.setNextCursor(page.getItems().get(pageSize - 1).getId());
+        }
+        page.setVersion(pageVersion(page, cursor));
+        // A page that may have missed a concurrent change is served, but not cached
+        if (pages != null && page.getVersion() <= readAt) {
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    private long pageVersion(ProductPageDTO page, long cursor) {
+        List<ProductDTO> items = page.getItems();
+        long lastId = items.isEmpty() ? cursor : items.get(items.size() - 1).getId();
+        return catalogVersions.changedAt(cursor, lastId, page.getNextCursor() == null);
+    }
+
     @CachePut(value = "products", key = "#result.id")
-    @CacheEvict(value = "products", allEntries = true)
     public ProductDTO createProduct(ProductDTO productDTO) {
         Product product = convertToEntity(productDTO);
-        return convertToDTO(productRepository.save(product));
+        ProductDTO created = convertToDTO(productRepository.save(product));
+        catalogVersions.touch(List.of(created.getId()), true);
+        return created;
     }
 
+    @Transactional
     @CachePut(value = "products", key = "#id")
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
 
+        Integer ledgerLevel = null;
+        if (stockLedgerService.isEnabled()) {
+            // The ledger owns the level: a new one goes through it after the commit and reaches the row with the next flush
+            ledgerLevel = productDTO.getStockQuantity();
+            if (ledgerLevel != null) {
+                stockLedgerService.setStock(id, ledgerLevel);
+            }
+            productDTO.setStockQuantity(existingProduct.getStockQuantity());
+        } else if (existingProduct.getStockStripes() > 0) {
+            Integer stockQuantity = productDTO.getStockQuantity();
+            // The DTO carries the total: unless it is unchanged, it replaces the stripes and the rebalancer spreads it again
+            if (!Objects.equals(stockQuantity, existingProduct.getAvailableStock())) {
+                productStockStripeRepository.emptyStripes(id);
+                existingProduct.setAvailableStock(stockQuantity);
+            } else {
+                productDTO.setStockQuantity(existingProduct.getStockQuantity());
+            }
+        }
         updateProductFields(existingProduct, productDTO);
-        return convertToDTO(productRepository.save(existingProduct));
+        ProductDTO updated = convertToDTO(productRepository.save(existingProduct));
+        if (ledgerLevel != null) {
+            updated.setStockQuantity(ledgerLevel);
+        } else if (stockLedgerService.isEnabled()) {
+            stockLedgerService.applyLevels(List.of(updated));
+        }
+        catalogVersions.touch(List.of(id), false);
+        return updated;
     }
 
+    // Splits the product's stock across that many stripe rows (0 puts it back on the product row)
+    @CacheEvict(value = "products", key = "#id")
+    public ProductDTO configureStockStripes(Long id, int stripes) {
+        return convertToDTO(stripedStockService.configure(id, stripes));
+    }
+
+    // A single conditional UPDATE, so concurrent deductions on one product queue on the row lock instead of
+    // failing an optimistic version check
     @Transactional
-    @Retryable(value = {StockUpdateException.class}, maxAttempts = 3)
-    @CacheEvict(value = {"products", "product-stock"}, key = "#stockUpdate.productId")
+    @CacheEvict(value = "products", key = "#stockUpdate.productId")
     public void deductStock(StockUpdateDTO stockUpdate) {
-        Product product = productRepository.findById(stockUpdate.getProductId())
-                .orElseThrow(() -> new ProductNotFoundException("Product not found"));
-
-        if (product.getStockQuantity() < stockUpdate.getQuantity()) {
+        Long productId = stockUpdate.getProductId();
+        Integer stockQuantity = productRepository.deductStock(productId, stockUpdate.getQuantity());
+        catalogVersions.touch(List.of(productId), false);
+        if (stockQuantity != null) {
+            cacheStockLevel(productId, stockQuantity);
+            return;
+        }
+        Integer stripes = productRepository.findStockStripesById(productId);
+        if (stripes == null) {
+            throw new ProductNotFoundException("Product not found");
+        }
+        if (stripes == 0 || !stripedStockService.deduct(productId, stripes, stockUpdate.getQuantity())) {
             throw new StockUpdateException("Insufficient stock");
         }
+        forgetStockLevel(productId);
+    }
+
+    @Transactional
+    @CacheEvict(value = "products", key = "#stockUpdate.productId")
+    public void restoreStock(StockUpdateDTO stockUpdate) {
+        Long productId = stockUpdate.getProductId();
+        Integer stockQuantity = productRepository.restoreStock(productId, stockUpdate.getQuantity());
+        catalogVersions.touch(List.of(productId), false);
+        if (stockQuantity != null) {
+            cacheStockLevel(productId, stockQuantity);
+            return;
+        }
+        Integer stripes = productRepository.findStockStripesById(productId);
+        if (stripes == null) {
+            throw new ProductNotFoundException("Product not found");
+        }
+        stripedStockService.restore(productId, stripes, stockUpdate.getQuantity());
+        forgetStockLevel(productId);
+    }
 
-        product.setStockQuantity(product.getStockQuantity() - stockUpdate.getQuantity());
-        productRepository.save(product);
+    // Written while the row lock is still held, so concurrent updates reach Redis in commit order
+    private void cacheStockLevel(Long productId, int stockQuantity) {
+        redisTemplate.opsForValue().set("product-stock::" + productId, stockQuantity);
+    }
 
-        // Update stock cache
-        String stockCacheKey = "product-stock::" + stockUpdate.getProductId();
-        redisTemplate.opsForValue().set(stockCacheKey, product.getStockQuantity());
+    // A striped product's level is not known without summing its stripes, which no lock keeps in order
+    private void forgetStockLevel(Long productId) {
+        redisTemplate.delete("product-stock::" + productId);
     }
 
+    /**
+     * Applies a whole order's stock changes in one transaction: either every line is deducted
+     * (or restored) or none is. Rows are locked in ascending product id order.
+     */
     @Transactional
-    @Retryable(value = {StockUpdateException.class}, maxAttempts = 3)
-    @CacheEvict(value = {"products", "product-stock"}, key = "#stockUpdate.productId")
-    public void restoreStock(StockUpdateDTO stockUpdate) {
-        Product product = productRepository.findById(stockUpdate.getProductId())
-                .orElseThrow(() -> new ProductNotFoundException("Product not found"));
+    public StockReservationResultDTO reserveStock(StockReservationDTO reservation) {
+        Map<Long, Integer> quantities = mergeItems(reservation);
+        List<Product> products = productRepository.findAllByIdInOrderByIdWithLock(quantities.keySet());
+        if (products.size() != quantities.size()) {
+            Set<Long> foundIds = products.stream().map(Product::getId).collect(Collectors.toSet());
+            quantities.keySet().stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .findFirst()
+                    .ifPresent(id -> {
+                        throw new ProductNotFoundException(id);
+                    });
+        }
+
+        StockReservationResultDTO result = new StockReservationResultDTO();
+        result.setOperation(reservation.getOperation());
 
-        product.setStockQuantity(product.getStockQuantity() + stockUpdate.getQuantity());
-        productRepository.save(product);
+        // Checked under the product locks, so a concurrent retry of the same key waits for this one to commit
+        String idempotencyKey = reservation.getIdempotencyKey();
+        if (idempotencyKey != null && stockReservationRepository.existsById(idempotencyKey)) {
+            result.setDuplicate(true);
+            products.forEach(product -> result.getItems().add(
+                    new StockItemResultDTO(product.getId(), quantities.get(product.getId()), stockLevel(product))));
+            return result;
+        }
 
+        for (Product product : products) {
+            int quantity = quantities.get(product.getId());
+            if (product.getStockStripes() > 0) {
+                if (reservation.getOperation() == StockOperation.DEDUCT) {
+                    if (!stripedStockService.deduct(product.getId(), product.getStockStripes(), quantity)) {
+                        throw new StockUpdateException(product.getId(), quantity, product.getAvailableStock());
+                    }
+                    product.setAvailableStock(product.getAvailableStock() - quantity);
+                } else {
+                    stripedStockService.restore(product.getId(), product.getStockStripes(), quantity);
+                    product.setAvailableStock(product.getAvailableStock() + quantity);
+                }
+                result.getItems().add(new StockItemResultDTO(product.getId(), quantity, product.getAvailableStock()));
+                continue;
+            }
+            if (reservation.getOperation() == StockOperation.DEDUCT) {
+                if (product.getStockQuantity() < quantity) {
+                    throw new StockUpdateException(product.getId(), quantity, product.getStockQuantity());
+                }
+                product.setStockQuantity(product.getStockQuantity() - quantity);
+            } else {
+                product.setStockQuantity(product.getStockQuantity() + quantity);
+            }
+            result.getItems().add(new StockItemResultDTO(product.getId(), quantity, product.getStockQuantity()));
+        }
+        productRepository.saveAll(products);
+        if (idempotencyKey != null) {
+            StockReservation applied = new StockReservation();
+            applied.setIdempotencyKey(idempotencyKey);
+            applied.setOperation(reservation.getOperation());
+            applied.setCreatedAt(LocalDateTime.now());
+            stockReservationRepository.save(applied);
+        }
+
+        catalogVersions.touch(quantities.keySet(), false);
         // Update stock cache
-        String stockCacheKey = "product-stock::" + stockUpdate.getProductId();
-        redisTemplate.opsForValue().set(stockCacheKey, product.getStockQuantity());
+        Cache productCache = cacheManager.getCache("products");
+        products.forEach(product -> {
+            if (productCache != null) {
+                productCache.evict(product.getId());
+            }
+            if (product.getStockStripes() > 0) {
+                forgetStockLevel(product.getId());
+            } else {
+                cacheStockLevel(product.getId(), product.getStockQuantity());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Puts stock back on many products with one batched UPDATE, for releasing stock holds in bulk.
+     * A striped product gets it on its product row, from where the rebalancer spreads it.
+     */
+    @Transactional
+    public void restoreStock(Map<Long, Integer> quantities) {
+        List<Object[]> updates = new ArrayList<>(quantities.size());
+        // Rows are updated in id order, like reserveStock locks them
+        new TreeMap<>(quantities).forEach((productId, quantity) -> updates.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate("UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1 " +
+                "WHERE id = ?", updates);
+        catalogVersions.touch(quantities.keySet(), false);
+
+        Cache productCache = cacheManager.getCache("products");
+        quantities.keySet().forEach(productId -> {
+            if (productCache != null) {
+                productCache.evict(productId);
+            }
+            forgetStockLevel(productId);
+        });
+    }
+
+    // Validates a reservation and merges duplicate lines per product; the TreeMap keeps them in lock order
+    static Map<Long, Integer> mergeItems(StockReservationDTO reservation) {
+        if (reservation.getOperation() == null || reservation.getItems() == null || reservation.getItems().isEmpty()) {
+            throw new StockUpdateException("Stock reservation must have an operation and at least one item");
+        }
+        // Checked up front: the ledger would take the stock and only fail once the flusher stores the key
+        String idempotencyKey = reservation.getIdempotencyKey();
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new StockUpdateException("Idempotency key may be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockUpdateDTO item : reservation.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new StockUpdateException("Invalid stock reservation item: " + item);
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
     }
 
     @CacheEvict(value = {"products", "product-stock"}, key = "#id")
@@ -95,6 +392,10 @@ public class ProductService {
             throw new ProductNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        catalogVersions.touch(List.of(id), false);
+        if (stockLedgerService.isEnabled()) {
+            stockLedgerService.remove(id);
+        }
     }
 
 
@@ -105,10 +406,15 @@ public class ProductService {
         dto.setName(product.getName());
         dto.setDescription(product.getDescription());
         dto.setPrice(product.getPrice());
-        dto.setStockQuantity(product.getStockQuantity());
+        dto.setStockQuantity(stockLevel(product));
         return dto;
     }
 
+    // A striped product's row only holds stock the rebalancer has not spread over the stripes yet
+    private Integer stockLevel(Product product) {
+        return product.getStockStripes() > 0 ? product.getAvailableStock() : product.getStockQuantity();
+    }
+
     private Product convertToEntity(ProductDTO dto) {
         Product product = new Product();
         product.setId(dto.getId());
@@ -0,0 +1,301 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.dto.StockHoldDTO;
+import com.dev.product_service.dto.StockHoldRequestDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.StockHold;
+import com.dev.product_service.entity.StockHoldItem;
+import com.dev.product_service.enums.StockHoldStatus;
+import com.dev.product_service.enums.StockOperation;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockHoldNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.StockHoldItemRepository;
+import com.dev.product_service.repository.StockHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Holds: stock taken for a limited time, then either confirmed (kept) or given back, by an
+ * explicit release or on expiry. Placing a hold is a reservation keyed by the hold id, so it
+ * goes through the same path (striped rows, the stock ledger) as any other.
+ * <p>
+ * Expiry is driven by an in-memory {@link TimingWheel} of the holds placed on this instance (and
+ * those outstanding at startup), ticked every product.stock.holds.tick-ms on a scheduler thread of
+ * its own. Due holds are released in batches: one UPDATE claims those still outstanding and past
+ * their expiry, and their stock goes back with one batched UPDATE per batch. A periodic sweep of
+ * the stock_holds table picks up holds placed on other instances or missed after a failure.
+ */
+@Service
+public class StockHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHoldService.class);
+    private static final String HOLD_KEY_PREFIX = "hold:";
+    private static final String RELEASE_KEY_PREFIX = "hold-release:";
+    private static final int MAX_HOLD_ID_LENGTH = 80;
+
+    private final StockHoldRepository stockHoldRepository;
+    private final StockHoldItemRepository stockHoldItemRepository;
+    private final ProductService productService;
+    private final StockLedgerService stockLedgerService;
+    private final TransactionTemplate transactionTemplate;
+    // Holds are not removed when confirmed or released; the claim skips them when they fire
+    private final TimingWheel<String> expiryWheel;
+
+    @Value("${product.stock.holds.default-ttl-s:900}")
+    private int defaultTtlSeconds;
+
+    @Value("${product.stock.holds.max-ttl-s:86400}")
+    private int maxTtlSeconds;
+
+    @Value("${product.stock.holds.release-batch-size:500}")
+    private int releaseBatchSize;
+
+    public StockHoldService(StockHoldRepository stockHoldRepository, StockHoldItemRepository stockHoldItemRepository,
+                            ProductService productService, StockLedgerService stockLedgerService,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${product.stock.holds.tick-ms:100}") long tickMillis) {
+        this.stockHoldRepository = stockHoldRepository;
+        this.stockHoldItemRepository = stockHoldItemRepository;
+        this.productService = productService;
+        this.stockLedgerService = stockLedgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.expiryWheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+    }
+
+    public StockHoldDTO hold(StockHoldRequestDTO request) {
+        int ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new StockUpdateException("Stock hold TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        String holdId = request.getHoldId() != null ? request.getHoldId() : UUID.randomUUID().toString();
+        // Prefixed, it is the idempotency key of the hold's reservations
+        if (holdId.isBlank() || holdId.length() > MAX_HOLD_ID_LENGTH) {
+            throw new StockUpdateException("Stock hold id must be 1 to " + MAX_HOLD_ID_LENGTH + " characters");
+        }
+        StockReservationDTO reservation = reservation(HOLD_KEY_PREFIX + holdId, StockOperation.DEDUCT, request.getItems());
+        Map<Long, Integer> quantities = ProductService.mergeItems(reservation);
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+
+        StockHoldDTO hold;
+        if (stockLedgerService.isEnabled()) {
+            // Redis first; a retry after a failure in between finds the key applied and only saves the hold
+            StockReservationResultDTO taken = stockLedgerService.reserveStock(reservation);
+            try {
+                hold = transactionTemplate.execute(status -> save(holdId, expiresAt, quantities));
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent retry of the same id saved the hold first; the stock taken here is that hold's
+                hold = getHold(holdId);
+            } catch (RuntimeException e) {
+                // Frees the hold key with the stock, so a retry takes the stock again instead of saving an empty hold
+                if (!taken.isDuplicate()) {
+                    stockLedgerService.undoReservation(reservation);
+                }
+                throw e;
+            }
+        } else {
+            hold = transactionTemplate.execute(status -> productService.reserveStock(reservation).isDuplicate()
+                    ? getHold(holdId)
+                    : save(holdId, expiresAt, quantities));
+        }
+        if (hold.getStatus() == StockHoldStatus.HELD) {
+            expiryWheel.schedule(holdId, epochMillis(hold.getExpiresAt()));
+        }
+        return hold;
+    }
+
+    @Transactional(readOnly = true)
+    public StockHoldDTO getHold(String holdId) {
+        StockHold hold = stockHoldRepository.findById(holdId)
+                .orElseThrow(() -> new StockHoldNotFoundException(holdId));
+        return convertToDTO(hold, stockHoldItemRepository.findByHoldId(holdId));
+    }
+
+    // Keeps the held stock for good; confirming twice is fine, confirming after expiry is not
+    @Transactional
+    public StockHoldDTO confirm(String holdId) {
+        if (stockHoldRepository.confirm(holdId, LocalDateTime.now()) == null) {
+            StockHoldDTO hold = getHold(holdId);
+            if (hold.getStatus() == StockHoldStatus.HELD) {
+                throw new StockUpdateException("Stock hold " + holdId + " has expired");
+            }
+            if (hold.getStatus() != StockHoldStatus.CONFIRMED) {
+                throw new StockUpdateException("Stock hold " + holdId + " is " + hold.getStatus() + " and cannot be confirmed");
+            }
+            return hold;
+        }
+        return getHold(holdId);
+    }
+
+    // Gives the held stock back; releasing a hold that was already released or expired is fine
+    public StockHoldDTO release(String holdId) {
+        if (releaseHolds(List.of(holdId), StockHoldStatus.RELEASED).isEmpty()) {
+            StockHoldDTO hold = getHold(holdId);
+            if (hold.getStatus() == StockHoldStatus.CONFIRMED) {
+                throw new StockUpdateException("Stock hold " + holdId + " is CONFIRMED and cannot be released");
+            }
+            return hold;
+        }
+        return getHold(holdId);
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.holds.tick-ms:100}", scheduler = "holdExpiryScheduler")
+    public void expireDue() {
+        List<String> due = expiryWheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += releaseBatchSize) {
+            List<String> batch = due.subList(from, Math.min(from + releaseBatchSize, due.size()));
+            try {
+                releaseHolds(batch, StockHoldStatus.EXPIRED);
+            } catch (Exception e) {
+                // Still outstanding in the table, so the sweep releases them
+                logger.error("Failed to release {} expired stock holds: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.holds.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        try {
+            while (true) {
+                List<String> expired = stockHoldRepository.findExpiredIds(LocalDateTime.now(), Limit.of(releaseBatchSize));
+                // Another instance may claim them first; stop rather than spin on the same rows
+                if (expired.isEmpty() || releaseHolds(expired, StockHoldStatus.EXPIRED).isEmpty()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to sweep expired stock holds: {}", e.getMessage());
+        }
+    }
+
+    // Puts the holds outstanding from before a restart back on the wheel; expired ones fire on the next tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOutstanding() {
+        String afterId = "";
+        int scheduled = 0;
+        while (true) {
+            List<StockHold> holds = stockHoldRepository.findHeldAfter(afterId, Limit.of(releaseBatchSize));
+            holds.forEach(hold -> expiryWheel.schedule(hold.getId(), epochMillis(hold.getExpiresAt())));
+            scheduled += holds.size();
+            if (holds.size() < releaseBatchSize) {
+                break;
+            }
+            afterId = holds.get(holds.size() - 1).getId();
+        }
+        logger.info("Scheduled expiry of {} outstanding stock holds", scheduled);
+    }
+
+    /**
+     * Moves the given holds to RELEASED or EXPIRED and gives their stock back, in one transaction.
+     * Only holds still outstanding (and, for EXPIRED, past their expiry) are moved; returns their ids.
+     */
+    List<String> releaseHolds(Collection<String> holdIds, StockHoldStatus status) {
+        return transactionTemplate.execute(tx -> {
+            List<String> claimed = stockHoldRepository.claim(holdIds, status.name(), LocalDateTime.now(),
+                    status == StockHoldStatus.EXPIRED);
+            if (claimed.isEmpty()) {
+                return claimed;
+            }
+            List<StockHoldItem> items = stockHoldItemRepository.findByHoldIdIn(claimed);
+            if (stockLedgerService.isEnabled()) {
+                // One keyed restore per hold, so a batch retried after a failed commit restores nothing twice
+                items.stream()
+                        .collect(Collectors.groupingBy(StockHoldItem::getHoldId, TreeMap::new, Collectors.toList()))
+                        .forEach(this::restoreToLedger);
+            } else {
+                Map<Long, Integer> quantities = new TreeMap<>();
+                items.forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+                productService.restoreStock(quantities);
+            }
+            return claimed;
+        });
+    }
+
+    private void restoreToLedger(String holdId, List<StockHoldItem> items) {
+        List<StockUpdateDTO> updates = items.stream().map(item -> {
+            StockUpdateDTO update = new StockUpdateDTO();
+            update.setProductId(item.getProductId());
+            update.setQuantity(item.getQuantity());
+            return update;
+        }).collect(Collectors.toList());
+        try {
+            stockLedgerService.reserveStock(reservation(RELEASE_KEY_PREFIX + holdId, StockOperation.RESTORE, updates));
+        } catch (ProductNotFoundException e) {
+            logger.warn("Released stock hold {} without restoring its stock: {}", holdId, e.getMessage());
+        }
+    }
+
+    // Saves a new hold, or returns the one a concurrent retry of the same id saved
+    private StockHoldDTO save(String holdId, LocalDateTime expiresAt, Map<Long, Integer> quantities) {
+        if (stockHoldRepository.existsById(holdId)) {
+            return getHold(holdId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        StockHold hold = new StockHold();
+        hold.setId(holdId);
+        hold.setStatus(StockHoldStatus.HELD);
+        hold.setExpiresAt(expiresAt);
+        hold.setCreatedAt(now);
+        hold.setUpdatedAt(now);
+        stockHoldRepository.save(hold);
+
+        List<StockHoldItem> items = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            StockHoldItem item = new StockHoldItem();
+            item.setHoldId(holdId);
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            items.add(item);
+        });
+        stockHoldItemRepository.saveAll(items);
+        return convertToDTO(hold, items);
+    }
+
+    private static StockReservationDTO reservation(String idempotencyKey, StockOperation operation,
+                                                   List<StockUpdateDTO> items) {
+        StockReservationDTO reservation = new StockReservationDTO();
+        reservation.setIdempotencyKey(idempotencyKey);
+        reservation.setOperation(operation);
+        reservation.setItems(items);
+        return reservation;
+    }
+
+    private static StockHoldDTO convertToDTO(StockHold hold, List<StockHoldItem> items) {
+        StockHoldDTO dto = new StockHoldDTO();
+        dto.setId(hold.getId());
+        dto.setStatus(hold.getStatus());
+        dto.setExpiresAt(hold.getExpiresAt());
+        items.forEach(item -> {
+            StockUpdateDTO update = new StockUpdateDTO();
+            update.setProductId(item.getProductId());
+            update.setQuantity(item.getQuantity());
+            dto.getItems().add(update);
+        });
+        return dto;
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,187 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.entity.StockLedgerOffset;
+import com.dev.product_service.enums.StockOperation;
+import com.dev.product_service.repository.StockLedgerOffsetRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Write-behind for the stock ledger: reads the stream entries after the last applied one, sums
+ * their deltas per product and applies each sum with one UPDATE, all in a single batch. The
+ * last applied entry id is stored in the same transaction, so after a crash the entries are
+ * replayed exactly once; trimming the stream afterwards is only housekeeping.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockLedgerFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedgerFlusher.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final StockLedgerOffsetRepository stockLedgerOffsetRepository;
+    private final StockLedgerService stockLedgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${product.stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.stock.ledger.flush-batch-size:1000}")
+    private int batchSize;
+
+    // Replays what the last run left unflushed, then brings the counters in line with the database
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        logger.info("Stock ledger reconciled: {} counters loaded or corrected", stockLedgerService.reconcile());
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            while (flushBatch() == batchSize) {
+                // A full batch means more may be waiting
+            }
+        } catch (Exception e) {
+            // Entries stay in the stream until applied, so the next run picks them up
+            logger.error("Failed to flush the stock ledger: {}", e.getMessage());
+        }
+    }
+
+    // Returns the number of stream entries applied
+    int flushBatch() {
+        List<String> flushedId = new ArrayList<>(1);
+        Integer applied = transactionTemplate.execute(status -> {
+            // Locked, so flushers on several instances take turns instead of applying an entry twice
+            StockLedgerOffset offset = stockLedgerOffsetRepository.findByStreamWithLock(StockLedgerService.STREAM_KEY)
+                    .orElseThrow(() -> new IllegalStateException("No stock ledger offset row"));
+            flushedId.add(offset.getLastId());
+            List<MapRecord<String, Object, Object>> entries = stringRedisTemplate.opsForStream().range(
+                    StockLedgerService.STREAM_KEY,
+                    Range.rightUnbounded(Range.Bound.exclusive(offset.getLastId())),
+                    Limit.limit().count(batchSize));
+            if (entries == null || entries.isEmpty()) {
+                return 0;
+            }
+
+            // Sorted, so rows are updated in id order like reserveStock locks them
+            Map<Long, Long> deltas = new TreeMap<>();
+            List<Object[]> reservations = new ArrayList<>();
+            for (MapRecord<String, Object, Object> entry : entries) {
+                Map<Object, Object> fields = entry.getValue();
+                Map<Long, Long> entryDeltas = parseItems(fields.get("items"));
+                if (entryDeltas == null) {
+                    // Retrying cannot fix it, and holding the offset here would stall every entry after it
+                    logger.error("Skipping malformed stock ledger entry {}: {}", entry.getId(), fields);
+                    continue;
+                }
+                entryDeltas.forEach((productId, delta) -> deltas.merge(productId, delta, Long::sum));
+
+                Object key = fields.get("key");
+                Object operation = fields.get("operation");
+                if (key == null || key.toString().isEmpty()) {
+                    continue;
+                }
+                if (key.toString().length() > ProductService.MAX_IDEMPOTENCY_KEY_LENGTH || !isOperation(operation)) {
+                    logger.error("Applied stock ledger entry {} without recording its idempotency key: {}",
+                            entry.getId(), fields);
+                    continue;
+                }
+                reservations.add(new Object[]{key, operation, Timestamp.valueOf(LocalDateTime.now())});
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            deltas.forEach((productId, delta) -> {
+                if (delta != 0) {
+                    updates.add(new Object[]{delta, productId});
+                }
+            });
+            jdbcTemplate.batchUpdate("UPDATE products SET stock_quantity = stock_quantity + ?, version = version + 1 " +
+                    "WHERE id = ?", updates);
+            // Keeps the idempotency keys once their Redis markers expire
+            if (!reservations.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO stock_reservations (idempotency_key, operation, created_at) " +
+                        "VALUES (?, ?, ?) ON CONFLICT DO NOTHING", reservations);
+            }
+
+            offset.setLastId(entries.get(entries.size() - 1).getId().getValue());
+            flushedId.set(0, offset.getLastId());
+            return entries.size();
+        });
+
+        // Only after the commit: counters are loaded as database level plus the entries after this id.
+        // Also written when nothing was applied, to catch up after a crash between commit and here.
+        stringRedisTemplate.opsForValue().set(StockLedgerService.FLUSHED_ID_KEY, flushedId.get(0));
+        if (applied != null && applied > 0) {
+            // MINID keeps the last applied entry itself; reads start after it
+            stringRedisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("XTRIM",
+                    bytes(StockLedgerService.STREAM_KEY), bytes("MINID"), bytes(flushedId.get(0))));
+        }
+        return applied != null ? applied : 0;
+    }
+
+    // Parses "productId:delta,..." as written by the apply script; null when the entry is malformed
+    private static Map<Long, Long> parseItems(Object items) {
+        if (items == null || items.toString().isEmpty()) {
+            return null;
+        }
+        Map<Long, Long> deltas = new TreeMap<>();
+        try {
+            for (String item : items.toString().split(",")) {
+                int separator = item.indexOf(':');
+                if (separator < 0) {
+                    return null;
+                }
+                deltas.merge(Long.valueOf(item.substring(0, separator)),
+                        Long.valueOf(item.substring(separator + 1)), Long::sum);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return deltas;
+    }
+
+    private static boolean isOperation(Object operation) {
+        if (operation == null) {
+            return false;
+        }
+        try {
+            StockOperation.valueOf(operation.toString());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
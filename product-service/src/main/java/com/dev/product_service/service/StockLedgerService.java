@@ -0,0 +1,264 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.ProductStockLevelDTO;
+import com.dev.product_service.dto.StockItemResultDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.StockLedgerOffset;
+import com.dev.product_service.enums.StockOperation;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.StockLedgerOffsetRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Redis-first stock. When enabled, a counter per product in Redis is the authoritative stock
+ * level: stock operations are checked and applied there by one Lua script, across all products
+ * of a reservation at once, without touching the database. Each applied operation is appended
+ * to a Redis stream that {@link StockLedgerFlusher} replays into products.stock_quantity.
+ * <p>
+ * A counter is loaded on first use as its database level plus the stream entries not flushed
+ * yet, read against the same flushed stream id, so a concurrent flush cannot be counted twice.
+ * All keys share the {stock-ledger} hash tag, so the scripts also run on a Redis Cluster.
+ */
+@Service
+public class StockLedgerService {
+
+    static final String STREAM_KEY = "{stock-ledger}:events";
+    static final String FLUSHED_ID_KEY = "{stock-ledger}:flushed-id";
+    private static final String COUNTER_KEY_PREFIX = "{stock-ledger}:stock::";
+    private static final String RESERVATION_KEY_PREFIX = "{stock-ledger}:reservation::";
+    private static final String SET_OPERATION = "SET";
+    private static final String UNDO_OPERATION = "UNDO";
+    // A flush between reading the database and running the load script makes it retry
+    private static final int LOAD_ATTEMPTS = 10;
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> applyScript =
+            RedisScript.of(new ClassPathResource("scripts/stock-ledger-apply.lua"), List.class);
+    private final RedisScript<Long> loadScript =
+            RedisScript.of(new ClassPathResource("scripts/stock-ledger-load.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductRepository productRepository;
+    private final StockLedgerOffsetRepository stockLedgerOffsetRepository;
+    private final CacheManager cacheManager;
+    private final CatalogVersions catalogVersions;
+    // Database levels and the flushed stream id they include must come from one snapshot, taken
+    // apart from any caller's transaction (which may already be committed, see setStock)
+    private final TransactionTemplate snapshotTransaction;
+
+    @Value("${product.stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${product.stock.ledger.idempotency-ttl-s:86400}")
+    private long idempotencyTtlSeconds;
+
+    public StockLedgerService(StringRedisTemplate stringRedisTemplate, ProductRepository productRepository,
+                              StockLedgerOffsetRepository stockLedgerOffsetRepository, CacheManager cacheManager,
+                              CatalogVersions catalogVersions, PlatformTransactionManager transactionManager) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.productRepository = productRepository;
+        this.stockLedgerOffsetRepository = stockLedgerOffsetRepository;
+        this.cacheManager = cacheManager;
+        this.catalogVersions = catalogVersions;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void deductStock(StockUpdateDTO stockUpdate) {
+        apply(StockOperation.DEDUCT.name(), Map.of(stockUpdate.getProductId(), stockUpdate.getQuantity()), null);
+    }
+
+    public void restoreStock(StockUpdateDTO stockUpdate) {
+        apply(StockOperation.RESTORE.name(), Map.of(stockUpdate.getProductId(), stockUpdate.getQuantity()), null);
+    }
+
+    // An absolute level, as set by a catalog update: applied once the update commits, as a rolled
+    // back update must not leave its level in the ledger
+    public void setStock(Long productId, int stockQuantity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(SET_OPERATION, Map.of(productId, stockQuantity), null);
+                }
+            });
+        } else {
+            apply(SET_OPERATION, Map.of(productId, stockQuantity), null);
+        }
+    }
+
+    public StockReservationResultDTO reserveStock(StockReservationDTO reservation) {
+        Map<Long, Integer> quantities = ProductService.mergeItems(reservation);
+        List<Long> result = apply(reservation.getOperation().name(), quantities, reservation.getIdempotencyKey());
+
+        StockReservationResultDTO reservationResult = new StockReservationResultDTO();
+        reservationResult.setOperation(reservation.getOperation());
+        reservationResult.setDuplicate(result.get(0) == 1);
+        int i = 1;
+        for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+            reservationResult.getItems().add(
+                    new StockItemResultDTO(item.getKey(), item.getValue(), result.get(i++).intValue()));
+        }
+        return reservationResult;
+    }
+
+    // Gives back a deduction applied under the reservation's key and frees the key, in one script run;
+    // false when nothing was applied under it
+    public boolean undoReservation(StockReservationDTO reservation) {
+        return apply(UNDO_OPERATION, ProductService.mergeItems(reservation), reservation.getIdempotencyKey()).get(0) == 2;
+    }
+
+    // Replaces the stock of the given products with their ledger level, where one is loaded
+    public void applyLevels(Collection<ProductDTO> products) {
+        List<ProductDTO> withIds = products.stream().filter(product -> product.getId() != null).toList();
+        if (withIds.isEmpty()) {
+            return;
+        }
+        List<String> levels = stringRedisTemplate.opsForValue().multiGet(
+                withIds.stream().map(product -> counterKey(product.getId())).toList());
+        for (int i = 0; i < withIds.size(); i++) {
+            String level = levels != null ? levels.get(i) : null;
+            if (level != null) {
+                withIds.get(i).setStockQuantity(Integer.valueOf(level));
+            }
+        }
+    }
+
+    public void remove(Long productId) {
+        stringRedisTemplate.delete(counterKey(productId));
+    }
+
+    /**
+     * Sets every product's counter to its database level plus the unflushed entries, loading the
+     * missing ones and correcting any that drifted (a lost Redis write, a manual database fix).
+     * Returns the number of counters set.
+     */
+    public int reconcile() {
+        int set = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            LoadResult result = load(() -> productRepository.findStockLevelsAfter(from, Limit.of(RECONCILE_BATCH_SIZE)),
+                    true);
+            set += result.set();
+            if (result.levels().size() < RECONCILE_BATCH_SIZE) {
+                return set;
+            }
+            afterId = result.levels().get(result.levels().size() - 1).getProductId();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> apply(String operation, Map<Long, Integer> quantities, String idempotencyKey) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        String key = idempotencyKey != null ? idempotencyKey : "";
+        List<String> keys = new ArrayList<>();
+        keys.add(STREAM_KEY);
+        keys.add(RESERVATION_KEY_PREFIX + key);
+        List<String> args = new ArrayList<>(List.of(operation, key, String.valueOf(idempotencyTtlSeconds)));
+        for (Long productId : productIds) {
+            keys.add(counterKey(productId));
+            args.add(productId.toString());
+            args.add(quantities.get(productId).toString());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            List<Long> result = stringRedisTemplate.execute(applyScript, keys, args.toArray());
+            long status = result.get(0);
+            if (status == -1 && attempt <= LOAD_ATTEMPTS) {
+                List<Long> missing = result.subList(1, result.size()).stream()
+                        .map(index -> productIds.get(index.intValue() - 1))
+                        .collect(Collectors.toList());
+                List<ProductStockLevelDTO> loaded = load(() -> productRepository.findStockLevels(missing), false).levels();
+                if (loaded.size() < missing.size()) {
+                    Set<Long> found = loaded.stream().map(ProductStockLevelDTO::getProductId).collect(Collectors.toSet());
+                    missing.stream().filter(id -> !found.contains(id)).findFirst().ifPresent(id -> {
+                        throw new ProductNotFoundException(id);
+                    });
+                }
+                continue;
+            }
+            if (status == -1) {
+                throw new StockUpdateException("Could not load the stock ledger counters of products " + productIds);
+            }
+            if (status == 0) {
+                Long productId = productIds.get(result.get(1).intValue() - 1);
+                throw new StockUpdateException(productId, quantities.get(productId), result.get(2).intValue());
+            }
+
+            Cache productCache = cacheManager.getCache("products");
+            if (productCache != null && status == 2) {
+                productIds.forEach(productCache::evict);
+            }
+            if (status == 2) {
+                catalogVersions.touch(productIds, false);
+            }
+            return result;
+        }
+    }
+
+    private LoadResult load(Supplier<List<ProductStockLevelDTO>> levelsQuery, boolean correctExisting) {
+        for (int attempt = 1; attempt <= LOAD_ATTEMPTS; attempt++) {
+            LoadResult snapshot = snapshotTransaction.execute(status -> new LoadResult(
+                    stockLedgerOffsetRepository.findById(STREAM_KEY).map(StockLedgerOffset::getLastId).orElse("0-0"),
+                    levelsQuery.get(), 0));
+            List<ProductStockLevelDTO> levels = snapshot.levels();
+            if (levels.isEmpty()) {
+                return snapshot;
+            }
+
+            List<String> keys = new ArrayList<>(List.of(STREAM_KEY, FLUSHED_ID_KEY));
+            List<String> args = new ArrayList<>(List.of(snapshot.flushedId(), correctExisting ? "all" : "missing"));
+            for (ProductStockLevelDTO level : levels) {
+                keys.add(counterKey(level.getProductId()));
+                args.add(level.getProductId().toString());
+                args.add(level.getStockQuantity().toString());
+            }
+            Long set = stringRedisTemplate.execute(loadScript, keys, args.toArray());
+            if (set != null && set >= 0) {
+                return new LoadResult(snapshot.flushedId(), levels, set.intValue());
+            }
+        }
+        throw new StockUpdateException("Stock ledger kept flushing while its counters were being loaded");
+    }
+
+    private record LoadResult(String flushedId, List<ProductStockLevelDTO> levels, int set) {
+    }
+
+    private static String counterKey(Long productId) {
+        return COUNTER_KEY_PREFIX + productId;
+    }
+}
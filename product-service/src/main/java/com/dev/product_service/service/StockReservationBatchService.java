@@ -0,0 +1,54 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationOutcomeDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
+import com.dev.product_service.enums.ReservationOutcome;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a batch of independent reservations, each in its own transaction, so one rejected
+ * reservation does not roll back the others. Business rejections are reported per entry;
+ * anything else fails the whole batch and the caller retries it, relying on idempotency keys
+ * to skip the entries that were already applied.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationBatchService.class);
+
+    private final ProductService productService;
+    private final StockLedgerService stockLedgerService;
+
+    public List<StockReservationOutcomeDTO> reserveStock(List<StockReservationDTO> reservations) {
+        return reservations.stream()
+                .map(this::reserve)
+                .collect(Collectors.toList());
+    }
+
+    private StockReservationOutcomeDTO reserve(StockReservationDTO reservation) {
+        StockReservationOutcomeDTO outcome = new StockReservationOutcomeDTO();
+        outcome.setIdempotencyKey(reservation.getIdempotencyKey());
+        try {
+            StockReservationResultDTO result = stockLedgerService.isEnabled()
+                    ? stockLedgerService.reserveStock(reservation)
+                    : productService.reserveStock(reservation);
+            outcome.setOutcome(result.isDuplicate() ? ReservationOutcome.DUPLICATE : ReservationOutcome.APPLIED);
+            outcome.setResult(result);
+        } catch (StockUpdateException | ProductNotFoundException e) {
+            logger.warn("Rejected stock reservation {}: {}", reservation.getIdempotencyKey(), e.getMessage());
+            outcome.setOutcome(ReservationOutcome.REJECTED);
+            outcome.setMessage(e.getMessage());
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,54 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Deletes the idempotency keys of applied reservations once they are older than the retention
+ * period, in batches of one short transaction each. The retention must outlast the longest time
+ * a caller keeps retrying a reservation: a retry arriving after its key is gone is applied again.
+ */
+@Service
+@RequiredArgsConstructor
+public class StockReservationPurger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationPurger.class);
+
+    private final StockReservationRepository stockReservationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${product.stock.reservations.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${product.stock.reservations.purge-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${product.stock.reservations.purge-interval-ms:3600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofHours(retentionHours));
+        try {
+            int purged = 0;
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(
+                        tx -> stockReservationRepository.deleteCreatedBefore(cutoff, batchSize));
+                purged += deleted;
+            } while (deleted == batchSize);
+            if (purged > 0) {
+                logger.info("Purged {} stock reservation keys recorded before {}", purged, cutoff);
+            }
+        } catch (Exception e) {
+            // Whatever is left is picked up by the next run
+            logger.error("Failed to purge stock reservation keys: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.ProductStockStripe;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.ProductStockStripeRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stock of hot products split across N stripe rows, so concurrent deductions for one product
+ * mostly lock different rows. A deduction takes from a random stripe and moves on to the next
+ * ones when it runs dry; only when no single stripe holds enough does it lock the product row
+ * and all stripes and take the quantity piecemeal. Stock put on the product row itself (a
+ * catalog update) and stripes drained unevenly are spread out again in the background.
+ * <p>
+ * Lock order is always the product row, then stripes by number. A single-stripe attempt that
+ * waited for a concurrent deduction and then found the stripe too low still holds its row lock
+ * in PostgreSQL, so each attempt runs in a savepoint that is rolled back when it fails.
+ */
+@Service
+@RequiredArgsConstructor
+public class StripedStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StripedStockService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductStockStripeRepository productStockStripeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${product.stock.stripes.max:64}")
+    private int maxStripes;
+
+    // Returns false, having taken nothing, when the product does not have that much in total
+    @Transactional
+    public boolean deduct(Long productId, int stripes, int quantity) {
+        // Pending entity changes must not be flushed inside a savepoint that may be rolled back
+        productRepository.flush();
+        int first = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            // Left unreleased on success; the transaction ends it
+            jdbcTemplate.execute("SAVEPOINT stripe_attempt");
+            if (productStockStripeRepository.takeStock(productId, (first + i) % stripes, quantity) != null) {
+                return true;
+            }
+            jdbcTemplate.execute("ROLLBACK TO SAVEPOINT stripe_attempt");
+        }
+
+        Product product = lockProduct(productId);
+        List<ProductStockStripe> lockedStripes = productStockStripeRepository.findByProductIdWithLock(productId);
+        int available = product.getStockQuantity()
+                + lockedStripes.stream().mapToInt(ProductStockStripe::getQuantity).sum();
+        if (available < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        int fromProduct = Math.min(remaining, product.getStockQuantity());
+        product.setStockQuantity(product.getStockQuantity() - fromProduct);
+        remaining -= fromProduct;
+        for (ProductStockStripe stripe : lockedStripes) {
+            int taken = Math.min(remaining, stripe.getQuantity());
+            stripe.setQuantity(stripe.getQuantity() - taken);
+            remaining -= taken;
+        }
+        return true;
+    }
+
+    @Transactional
+    public void restore(Long productId, int stripes, int quantity) {
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        if (productStockStripeRepository.addStock(productId, stripe, quantity) == 0) {
+            // Striping was changed concurrently; the product row always exists
+            Product product = lockProduct(productId);
+            product.setStockQuantity(product.getStockQuantity() + quantity);
+        }
+    }
+
+    // Moves a product's whole stock onto the given number of stripes, or back onto the product row for 0
+    @Transactional
+    public Product configure(Long productId, int stripes) {
+        if (stripes < 0 || stripes > maxStripes) {
+            throw new StockUpdateException("Stock stripes must be between 0 and " + maxStripes);
+        }
+        Product product = lockProduct(productId);
+        List<ProductStockStripe> current = productStockStripeRepository.findByProductIdWithLock(productId);
+        int total = product.getStockQuantity() + current.stream().mapToInt(ProductStockStripe::getQuantity).sum();
+
+        // Existing stripes are numbered 0..n-1: keep the ones still needed, drop or add the rest
+        List<ProductStockStripe> target = spread(productId, total, stripes);
+        for (int i = 0; i < Math.min(current.size(), stripes); i++) {
+            current.get(i).setQuantity(target.get(i).getQuantity());
+        }
+        if (current.size() > stripes) {
+            productStockStripeRepository.deleteFromStripe(productId, stripes);
+        } else {
+            productStockStripeRepository.saveAll(target.subList(current.size(), stripes));
+        }
+        product.setStockStripes(stripes);
+        product.setStockQuantity(stripes == 0 ? total : 0);
+        product.setAvailableStock(total);
+        logger.info("Product {} now keeps its stock of {} in {} stripes", productId, total, stripes);
+        return product;
+    }
+
+    @Scheduled(fixedDelayString = "${product.stock.rebalance.interval-ms:5000}")
+    public void rebalanceAll() {
+        for (Long productId : productRepository.findStripedProductIds()) {
+            try {
+                // Look without locking first: most runs find nothing to do
+                Product product = productRepository.findById(productId).orElse(null);
+                if (product != null && product.getStockStripes() > 0
+                        && needsRebalance(product, productStockStripeRepository.findByProductIdOrderByStripe(productId))) {
+                    transactionTemplate.executeWithoutResult(status -> rebalance(productId));
+                }
+            } catch (Exception e) {
+                // Deductions still spill over in the meantime; the next run tries again
+                logger.warn("Failed to rebalance stock stripes of product {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    private void rebalance(Long productId) {
+        Product product = lockProduct(productId);
+        List<ProductStockStripe> lockedStripes = productStockStripeRepository.findByProductIdWithLock(productId);
+        if (lockedStripes.size() != product.getStockStripes() || !needsRebalance(product, lockedStripes)) {
+            return;
+        }
+        int total = product.getStockQuantity() + lockedStripes.stream().mapToInt(ProductStockStripe::getQuantity).sum();
+        List<ProductStockStripe> balanced = spread(productId, total, lockedStripes.size());
+        for (int i = 0; i < lockedStripes.size(); i++) {
+            lockedStripes.get(i).setQuantity(balanced.get(i).getQuantity());
+        }
+        product.setStockQuantity(0);
+    }
+
+    // Stock left on the product row (or owed by it, after stock ledger flushes), or a stripe down to less
+    // than half its fair share
+    private boolean needsRebalance(Product product, List<ProductStockStripe> stripes) {
+        if (product.getStockQuantity() != 0) {
+            return true;
+        }
+        int total = stripes.stream().mapToInt(ProductStockStripe::getQuantity).sum();
+        int fairShare = total / Math.max(stripes.size(), 1);
+        return stripes.stream().anyMatch(stripe -> stripe.getQuantity() < fairShare / 2);
+    }
+
+    private Product lockProduct(Long productId) {
+        List<Product> products = productRepository.findAllByIdInOrderByIdWithLock(List.of(productId));
+        if (products.isEmpty()) {
+            throw new ProductNotFoundException(productId);
+        }
+        return products.get(0);
+    }
+
+    private static List<ProductStockStripe> spread(Long productId, int total, int stripes) {
+        List<ProductStockStripe> result = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            ProductStockStripe stripe = new ProductStockStripe();
+            stripe.setProductId(productId);
+            stripe.setStripe(i);
+            stripe.setQuantity(total / stripes + (i < total % stripes ? 1 : 0));
+            result.add(stripe);
+        }
+        return result;
+    }
+}
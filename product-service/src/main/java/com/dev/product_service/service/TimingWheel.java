@@ -0,0 +1,110 @@
+package com.dev.product_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} wheels of {@value #SLOTS} slots, each slot of a wheel
+ * spanning a whole turn of the wheel below. Scheduling is O(1), and an entry is moved down at most
+ * {@value #LEVELS} - 1 times before it fires, so the work per tick does not grow with the number of
+ * entries outstanding. With 100 ms ticks the wheels cover 19 days; later deadlines wait in the top
+ * wheel and are placed again each time it turns.
+ * <p>
+ * Entries fire on the first tick at or after their deadline. They cannot be cancelled: callers
+ * skip the ones that no longer apply when they fire.
+ */
+class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    // Slot s of level l at index l * SLOTS + s; allocated on first use and dropped once drained
+    private final List<Entry<T>>[] slots;
+    private List<T> overdue = new ArrayList<>();
+    // Every tick up to and including this one has fired
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = (List<Entry<T>>[]) new List[LEVELS * SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    synchronized void schedule(T item, long deadlineMillis) {
+        // Rounded up, so nothing fires before its deadline
+        place(new Entry<>(item, -Math.floorDiv(-deadlineMillis, tickMillis)));
+        size++;
+    }
+
+    // Returns the entries due by now, including those scheduled in the past since the last call
+    synchronized List<T> advance(long nowMillis) {
+        List<T> due = overdue;
+        overdue = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Higher wheels first, so entries they move down into this tick's slot fire with it
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    List<Entry<T>> cascaded = take(level, slotOf(currentTick, level));
+                    if (cascaded != null) {
+                        cascaded.forEach(this::place);
+                    }
+                }
+            }
+            List<Entry<T>> fired = take(0, slotOf(currentTick, 0));
+            if (fired != null) {
+                fired.forEach(entry -> overdue.add(entry.item()));
+            }
+            due.addAll(overdue);
+            overdue.clear();
+        }
+        size -= due.size();
+        return due;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.deadlineTick() - currentTick;
+        if (delta <= 0) {
+            overdue.add(entry.item());
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot;
+        if (delta < 1L << (SLOT_BITS * LEVELS)) {
+            slot = slotOf(entry.deadlineTick(), level);
+        } else {
+            // Beyond the top wheel: the slot that turns last, from where it is placed again
+            slot = (slotOf(currentTick, level) + SLOTS - 1) & (SLOTS - 1);
+        }
+        int index = level * SLOTS + slot;
+        if (slots[index] == null) {
+            slots[index] = new ArrayList<>();
+        }
+        slots[index].add(entry);
+    }
+
+    private List<Entry<T>> take(int level, int slot) {
+        List<Entry<T>> entries = slots[level * SLOTS + slot];
+        slots[level * SLOTS + slot] = null;
+        return entries;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
@@ -0,0 +1,8 @@
+-- Idempotency keys of applied stock reservations, so a retried request is not applied twice
+CREATE TABLE stock_reservations (
+                                    idempotency_key VARCHAR(100) PRIMARY KEY,
+                                    operation VARCHAR(20) NOT NULL,
+                                    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_stock_reservations_created ON stock_reservations(created_at);
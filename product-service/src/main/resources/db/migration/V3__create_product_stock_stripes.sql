@@ -0,0 +1,13 @@
+-- Hot products can split their stock across stripes, so concurrent deductions lock different rows.
+-- 0 stripes: all stock is on the product row. Otherwise the stock is the row's plus its stripes'.
+ALTER TABLE products ADD COLUMN stock_stripes INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE product_stock_stripes (
+                                       product_id BIGINT NOT NULL REFERENCES products(id) ON DELETE CASCADE,
+                                       stripe INTEGER NOT NULL,
+                                       quantity INTEGER NOT NULL CHECK (quantity >= 0),
+                                       PRIMARY KEY (product_id, stripe)
+);
+
+-- Lets the rebalancer find the striped products without scanning the catalog
+CREATE INDEX idx_products_striped ON products(id) WHERE stock_stripes > 0;
@@ -0,0 +1,8 @@
+-- Last Redis stream entry the stock ledger flusher has applied to products, updated in the same
+-- transaction as the stock, so entries are replayed exactly once after a crash
+CREATE TABLE stock_ledger_offsets (
+                                      stream VARCHAR(100) PRIMARY KEY,
+                                      last_id VARCHAR(40) NOT NULL
+);
+
+INSERT INTO stock_ledger_offsets (stream, last_id) VALUES ('{stock-ledger}:events', '0-0');
@@ -0,0 +1,18 @@
+-- Stock taken for a limited time: returned to the products when released or expired, kept when confirmed
+CREATE TABLE stock_holds (
+                             id VARCHAR(100) PRIMARY KEY,
+                             status VARCHAR(20) NOT NULL,
+                             expires_at TIMESTAMP NOT NULL,
+                             created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                             updated_at TIMESTAMP
+);
+
+-- Only outstanding holds are looked up by expiry
+CREATE INDEX idx_stock_holds_held_expiry ON stock_holds(expires_at) WHERE status = 'HELD';
+
+CREATE TABLE stock_hold_items (
+                                  hold_id VARCHAR(100) NOT NULL REFERENCES stock_holds(id) ON DELETE CASCADE,
+                                  product_id BIGINT NOT NULL,
+                                  quantity INT NOT NULL CHECK (quantity > 0),
+                                  PRIMARY KEY (hold_id, product_id)
+);
@@ -0,0 +1,9 @@
+-- Takes the next catalog version and records it as the last change of each given id segment.
+-- KEYS[1] catalog version counter, KEYS[2] hash of segment to the version of its last change
+-- ARGV segment numbers, and 'tail' for an insert
+-- Returns the new version
+local version = redis.call('INCR', KEYS[1])
+for i = 1, #ARGV do
+    redis.call('HSET', KEYS[2], ARGV[i], version)
+end
+return version
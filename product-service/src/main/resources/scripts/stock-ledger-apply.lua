@@ -0,0 +1,62 @@
+-- Applies one stock operation to several products atomically: every counter changes or none does.
+-- KEYS[1] event stream, KEYS[2] idempotency marker, KEYS[3..] stock counters
+-- ARGV[1] DEDUCT, RESTORE, SET or UNDO, ARGV[2] idempotency key ('' for none), ARGV[3] marker TTL in seconds,
+-- ARGV[4..] product id and quantity pairs, in counter order (SET quantities are the new levels)
+-- UNDO gives back the DEDUCT applied under the key and removes its marker, so the key can be used again
+-- Returns {2, levels...} applied, {1, levels...} already applied (UNDO: nothing to undo),
+-- {0, i, level} counter i too low, {-1, i...} counters not loaded yet
+local counters = #KEYS - 2
+local levels = {}
+local missing = {}
+for i = 1, counters do
+    local level = redis.call('GET', KEYS[i + 2])
+    if level then
+        levels[i] = tonumber(level)
+    else
+        missing[#missing + 1] = i
+    end
+end
+if #missing > 0 then
+    table.insert(missing, 1, -1)
+    return missing
+end
+
+local operation = ARGV[1]
+local marked = ARGV[2] ~= '' and redis.call('EXISTS', KEYS[2]) == 1
+if marked ~= (operation == 'UNDO') then
+    table.insert(levels, 1, 1)
+    return levels
+end
+
+local deltas = {}
+for i = 1, counters do
+    local quantity = tonumber(ARGV[3 + 2 * i])
+    if operation == 'DEDUCT' then
+        if levels[i] < quantity then
+            return {0, i, levels[i]}
+        end
+        deltas[i] = -quantity
+    elseif operation == 'RESTORE' or operation == 'UNDO' then
+        deltas[i] = quantity
+    else
+        deltas[i] = quantity - levels[i]
+    end
+end
+
+local items = {}
+for i = 1, counters do
+    levels[i] = redis.call('INCRBY', KEYS[i + 2], deltas[i])
+    items[i] = ARGV[2 + 2 * i] .. ':' .. deltas[i]
+end
+-- The write-behind flusher replays these entries into the database
+if operation == 'UNDO' then
+    redis.call('XADD', KEYS[1], '*', 'operation', 'RESTORE', 'items', table.concat(items, ','), 'key', '')
+    redis.call('DEL', KEYS[2])
+else
+    redis.call('XADD', KEYS[1], '*', 'operation', operation, 'items', table.concat(items, ','), 'key', ARGV[2])
+    if ARGV[2] ~= '' then
+        redis.call('SET', KEYS[2], '1', 'EX', ARGV[3])
+    end
+end
+table.insert(levels, 1, 2)
+return levels
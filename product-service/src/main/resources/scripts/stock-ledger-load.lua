@@ -0,0 +1,34 @@
+-- Sets stock counters to their database level plus the deltas still waiting in the stream to be flushed.
+-- KEYS[1] event stream, KEYS[2] last flushed stream id, KEYS[3..] stock counters
+-- ARGV[1] stream id the database levels include everything up to, ARGV[2] 'missing' to only set absent
+-- counters or 'all' to also correct existing ones, ARGV[3..] product id and database level pairs
+-- Returns the number of counters set, or -1 when a flush happened after the database levels were read
+local flushed = redis.call('GET', KEYS[2]) or '0-0'
+if flushed ~= ARGV[1] then
+    return -1
+end
+
+-- Everything after the flushed id is unflushed, so this stays as short as the flusher keeps it
+local pending = {}
+for _, entry in ipairs(redis.call('XRANGE', KEYS[1], '(' .. ARGV[1], '+')) do
+    local fields = entry[2]
+    for f = 1, #fields, 2 do
+        if fields[f] == 'items' then
+            for id, delta in string.gmatch(fields[f + 1], '(%d+):(-?%d+)') do
+                pending[id] = (pending[id] or 0) + tonumber(delta)
+            end
+        end
+    end
+end
+
+local set = 0
+for i = 1, #KEYS - 2 do
+    local id = ARGV[1 + 2 * i]
+    local level = tonumber(ARGV[2 + 2 * i]) + (pending[id] or 0)
+    local current = redis.call('GET', KEYS[i + 2])
+    if not current or (ARGV[2] == 'all' and tonumber(current) ~= level) then
+        redis.call('SET', KEYS[i + 2], level)
+        set = set + 1
+    end
+end
+return set
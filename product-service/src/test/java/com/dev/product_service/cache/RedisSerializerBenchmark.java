@@ -0,0 +1,110 @@
+package com.dev.product_service.cache;
+
+import com.dev.common.cache.CompactRedisSerializer;
+import com.dev.product_service.dto.ProductDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost of the cache value serializers for a single product and for the cached
+ * product list. Run with {@code mvn -P benchmark test -Djmh.include=RedisSerializerBenchmark}, or run
+ * the main method from the test classpath to also print bytes per entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    private static final int LIST_SIZE = 100;
+
+    @Param({"json", "compact", "compact-gzip"})
+    public String format;
+
+    @Param({"product", "productList"})
+    public String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = serializer(format);
+        value = value(payload);
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    static RedisSerializer<Object> serializer(String format) {
+        return switch (format) {
+            case "json" -> new GenericJackson2JsonRedisSerializer();
+            case "compact" -> new CompactRedisSerializer(List.of(ProductDTO.class), true, Integer.MAX_VALUE);
+            case "compact-gzip" -> new CompactRedisSerializer(List.of(ProductDTO.class), true, 0);
+            default -> throw new IllegalArgumentException(format);
+        };
+    }
+
+    static Object value(String payload) {
+        if ("product".equals(payload)) {
+            return product(1);
+        }
+        List<ProductDTO> products = new ArrayList<>();
+        for (long id = 1; id <= LIST_SIZE; id++) {
+            products.add(product(id));
+        }
+        return products;
+    }
+
+    private static ProductDTO product(long id) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setSku("SKU-" + (100000 + id));
+        product.setName("Wireless Mouse " + id);
+        product.setDescription("Ergonomic 2.4 GHz wireless mouse with USB receiver");
+        product.setPrice(new BigDecimal("24.99"));
+        product.setStockQuantity(150);
+        return product;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        System.out.printf("%-13s %-12s %10s%n", "format", "payload", "bytes");
+        for (String format : new String[]{"json", "compact", "compact-gzip"}) {
+            for (String payload : new String[]{"product", "productList"}) {
+                int size = serializer(format).serialize(value(payload)).length;
+                System.out.printf("%-13s %-12s %10d%n", format, payload, size);
+            }
+        }
+        new Runner(new OptionsBuilder().include(RedisSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,150 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.ProductPageDTO;
+import com.dev.product_service.exception.ProductValidationException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Invalidation of the cached catalog pages through the catalog versions: with id segments of 10
+ * and pages of 5, an update reloads exactly the pages that cover its segment and an insert the
+ * pages that cover the new id's segment and the tail, while every other page is served as the
+ * cached instance. A negative cursor is refused, and cursors at or past the end of the id range
+ * are answered without walking the segments in between.
+ */
+@EnabledIf("com.dev.product_service.service.EmbeddedStores#postgresAvailable")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "logging.level.com.dev.product_service=WARN",
+        "product.catalog.segment-span=10"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, CatalogVersions.class,
+        EmbeddedStores.RedisBeans.class})
+class CatalogPageCacheTest {
+
+    private static final int PRODUCTS = 35;
+    private static final int PAGE_SIZE = 5;
+
+    private static RedisServer redis;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @DynamicPropertySource
+    static void stores(DynamicPropertyRegistry registry) throws IOException {
+        redis = EmbeddedStores.register(registry, "catalog_pages");
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Test
+    void onlyPagesOfChangedSegmentsAreReloaded() {
+        for (int i = 1; i <= PRODUCTS; i++) {
+            productService.createProduct(product("SKU-" + i));
+        }
+
+        List<ProductPageDTO> cold = walk();
+        // The database is this class's own, so ids run from 1: pages hold 1-5, 6-10, ... and an empty last one
+        assertEquals(1L, cold.get(0).getItems().get(0).getId());
+        assertEquals(PRODUCTS / PAGE_SIZE + 1, cold.size());
+        List<ProductPageDTO> warm = walk();
+        assertEquals(List.of(), reloaded(cold, warm));
+
+        // Id 13 is in segment 1 (ids 10-19), which pages 6-10, 11-15 and 16-20 all reach into
+        ProductDTO updated = new ProductDTO();
+        BeanUtils.copyProperties(warm.get(2).getItems().get(2), updated);
+        updated.setName("Renamed product");
+        productService.updateProduct(13L, updated);
+        List<ProductPageDTO> afterUpdate = walk();
+        assertEquals(List.of(1, 2, 3), reloaded(warm, afterUpdate));
+        assertEquals("Renamed product", afterUpdate.get(2).getItems().get(2).getName());
+
+        // Id 36 goes to the tail, and to segment 3 (ids 30-39), which pages 26-30 and 31-35 reach into as well
+        productService.createProduct(product("SKU-NEW"));
+        List<ProductPageDTO> afterInsert = walk();
+        assertEquals(List.of(5, 6, 7), reloaded(afterUpdate, afterInsert));
+        assertEquals("SKU-NEW", afterInsert.get(7).getItems().get(0).getSku());
+    }
+
+    @Test
+    void cursorsOutsideTheIdRangeAreAnsweredPromptly() {
+        assertThrows(ProductValidationException.class,
+                () -> productService.getProductPage(-1_000_000_000_000L, PAGE_SIZE));
+
+        // Would walk the segments from the far negative end had cursor + 1 overflowed
+        ProductPageDTO past = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> productService.getProductPage(Long.MAX_VALUE, PAGE_SIZE));
+        assertTrue(past.getItems().isEmpty());
+        assertNull(past.getNextCursor());
+
+        // Ids far apart take the whole catalog's version rather than one field per segment between them
+        assertEquals(catalogVersions.current(), assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> catalogVersions.changedAt(0, Long.MAX_VALUE - 1, false)));
+    }
+
+    private List<ProductPageDTO> walk() {
+        List<ProductPageDTO> pages = new ArrayList<>();
+        Long cursor = 0L;
+        while (cursor != null) {
+            ProductPageDTO page = productService.getProductPage(cursor, PAGE_SIZE);
+            pages.add(page);
+            cursor = page.getNextCursor();
+        }
+        return pages;
+    }
+
+    // Indexes of the pages that were loaded again; cached ones come back as the same instance
+    private static List<Integer> reloaded(List<ProductPageDTO> before, List<ProductPageDTO> after) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < after.size(); i++) {
+            if (i >= before.size() || before.get(i) != after.get(i)) {
+                indexes.add(i);
+            }
+        }
+        return indexes;
+    }
+
+    private static ProductDTO product(String sku) {
+        ProductDTO product = new ProductDTO();
+        product.setSku(sku);
+        product.setName("Product " + sku);
+        product.setPrice(BigDecimal.ONE);
+        product.setStockQuantity(1);
+        return product;
+    }
+}
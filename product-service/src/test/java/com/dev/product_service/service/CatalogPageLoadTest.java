@@ -0,0 +1,202 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.ProductPageDTO;
+import com.dev.product_service.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The catalog read as one list, the way GET /products used to load it on every miss, against
+ * walking it page by page: once cold, once from the page cache, and again after one insert and
+ * after one update, counting the pages that had to be reloaded. Needs an embedded PostgreSQL,
+ * which refuses to run as root, and an embedded Redis for the catalog versions.
+ * Run with {@code mvn test -Dtest=CatalogPageLoadTest -Dbenchmark=true [-Dproducts=200000] [-Dpage-size=100]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "logging.level.com.dev.product_service=WARN",
+        "logging.level.com.dev.product_service.service.CatalogPageLoadTest=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, CatalogVersions.class,
+        CatalogPageLoadTest.Stubs.class})
+class CatalogPageLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogPageLoadTest.class);
+    private static final int PRODUCTS = Integer.getInteger("products", 200_000);
+    private static final int PAGE_SIZE = Integer.getInteger("page-size", 100);
+
+    private static EmbeddedPostgres postgres;
+    private static RedisServer redis;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // Stopped with the JVM, after the cached test context has closed its connection pool
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+
+        int redisPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            redisPort = socket.getLocalPort();
+        }
+        redis = new RedisServer(redisPort);
+        redis.start();
+        registry.add("spring.data.redis.port", () -> redisPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Test
+    void onlyChangedPagesAreReloaded() throws Exception {
+        jdbcTemplate.update("INSERT INTO products (sku, name, description, price, stock_quantity, stock_stripes, version) " +
+                "SELECT 'SKU-' || n, 'Product ' || n, 'Description of product ' || n, 9.99, 100, 0, 0 " +
+                "FROM generate_series(1, ?) n", PRODUCTS);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        long start = System.nanoTime();
+        byte[] fullList = objectMapper.writeValueAsBytes(productRepository.findAll());
+        double fullListMs = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        List<ProductPageDTO> cold = walk();
+        double coldMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        List<ProductPageDTO> warm = walk();
+        double warmMs = (System.nanoTime() - start) / 1e6;
+        assertEquals(0, reloaded(cold, warm), "an unchanged catalog should be served from the page cache");
+
+        ProductDTO product = new ProductDTO();
+        product.setSku("SKU-NEW");
+        product.setName("New product");
+        product.setPrice(BigDecimal.ONE);
+        product.setStockQuantity(1);
+        productService.createProduct(product);
+        List<ProductPageDTO> afterInsert = walk();
+
+        // One in the middle of the catalog; a copy, since the cached page holds the same instance
+        ProductDTO updated = new ProductDTO();
+        BeanUtils.copyProperties(afterInsert.get(afterInsert.size() / 2).getItems().get(0), updated);
+        updated.setName("Renamed product");
+        productService.updateProduct(updated.getId(), updated);
+        List<ProductPageDTO> afterUpdate = walk();
+
+        logger.info(String.format("full list:      %8.0f ms, %6d KB", fullListMs, fullList.length / 1024));
+        logger.info(String.format("pages cold:     %8.0f ms, %6d pages of %d", coldMs, cold.size(), PAGE_SIZE));
+        logger.info(String.format("pages cached:   %8.0f ms", warmMs));
+        logger.info(String.format("after insert:   %8d pages reloaded", reloaded(warm, afterInsert)));
+        logger.info(String.format("after update:   %8d pages reloaded", reloaded(afterInsert, afterUpdate)));
+
+        assertEquals(PRODUCTS + 1, afterInsert.stream().mapToInt(page -> page.getItems().size()).sum());
+        // The last page, and the one before it when that shares the new id's segment
+        assertTrue(reloaded(warm, afterInsert) <= 2, "an insert should only reload the end of the catalog");
+        assertTrue(reloaded(afterInsert, afterUpdate) <= 1000 / PAGE_SIZE + 1,
+                "an update should only reload the pages of its id segment");
+        assertTrue(afterUpdate.stream().flatMap(page -> page.getItems().stream())
+                .anyMatch(item -> "Renamed product".equals(item.getName())));
+        assertNotSame(afterInsert.get(afterInsert.size() / 2), afterUpdate.get(afterUpdate.size() / 2));
+    }
+
+    private List<ProductPageDTO> walk() {
+        List<ProductPageDTO> pages = new ArrayList<>();
+        Long cursor = 0L;
+        while (cursor != null) {
+            ProductPageDTO page = productService.getProductPage(cursor, PAGE_SIZE);
+            pages.add(page);
+            cursor = page.getNextCursor();
+        }
+        return pages;
+    }
+
+    // Cached pages come back as the same instance from the in-memory cache manager used here
+    private static long reloaded(List<ProductPageDTO> before, List<ProductPageDTO> after) {
+        long count = 0;
+        for (int i = 0; i < after.size(); i++) {
+            if (i >= before.size() || before.get(i) != after.get(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory(@Value("${spring.data.redis.port}") int port) {
+            return new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            return new StringRedisTemplate(redisConnectionFactory);
+        }
+
+        @Bean
+        RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            return template;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.dev.product_service.service;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The embedded PostgreSQL shared by the behaviour tests, started on first use and stopped with
+ * the JVM; each test class gets a database of its own and an embedded Redis of its own. The
+ * embedded server refuses to run as root, so those tests are gated on
+ * {@code @EnabledIf("com.dev.product_service.service.EmbeddedStores#postgresAvailable")} and
+ * skipped where it cannot start. Flyway is off in those tests, as the schema comes from the
+ * entities, so rows its migrations insert are created by the tests themselves.
+ */
+final class EmbeddedStores {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedStores.class);
+
+    private static EmbeddedPostgres postgres;
+    private static boolean postgresFailed;
+
+    private EmbeddedStores() {
+    }
+
+    static synchronized boolean postgresAvailable() {
+        if (postgres == null && !postgresFailed) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Embedded PostgreSQL is not available, skipping the tests that need it: {}", e.getMessage());
+                postgresFailed = true;
+            }
+        }
+        return postgres != null;
+    }
+
+    // Points the test context at a fresh database and a new Redis server; returns the server to stop after the class
+    static RedisServer register(DynamicPropertyRegistry registry, String database) throws IOException {
+        String jdbcUrl = createDatabase(database);
+        registry.add("spring.datasource.url", () -> jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+
+        int redisPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            redisPort = socket.getLocalPort();
+        }
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        registry.add("spring.data.redis.port", () -> redisPort);
+        return redis;
+    }
+
+    private static synchronized String createDatabase(String database) {
+        if (!postgresAvailable()) {
+            throw new IllegalStateException("Embedded PostgreSQL is not available");
+        }
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + database);
+            statement.execute("CREATE DATABASE " + database);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create database " + database, e);
+        }
+        return postgres.getJdbcUrl("postgres", database);
+    }
+
+    // The Redis beans a @DataJpaTest slice leaves out, with an in-memory cache manager whose hits return the same instance
+    @TestConfiguration
+    static class RedisBeans {
+
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory(@Value("${spring.data.redis.port}") int port) {
+            return new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            return new StringRedisTemplate(redisConnectionFactory);
+        }
+
+        @Bean
+        RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            return template;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.ProductRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Stock deductions and restores through the conditional UPDATE ... RETURNING against PostgreSQL:
+ * the returned level reaches Redis, a deduction that would go below zero changes nothing, and
+ * concurrent deductions sell out exactly.
+ */
+@EnabledIf("com.dev.product_service.service.EmbeddedStores#postgresAvailable")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "logging.level.com.dev.product_service=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, CatalogVersions.class,
+        EmbeddedStores.RedisBeans.class})
+class ProductStockTest {
+
+    private static RedisServer redis;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @DynamicPropertySource
+    static void stores(DynamicPropertyRegistry registry) throws IOException {
+        redis = EmbeddedStores.register(registry, "product_stock");
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Test
+    void deductAndRestoreCacheTheReturnedLevel() {
+        Long productId = createProduct("RETURNING", 10);
+
+        productService.deductStock(stockUpdate(productId, 4));
+        assertEquals(6, stockOf(productId));
+        assertEquals(6, redisTemplate.opsForValue().get("product-stock::" + productId));
+
+        productService.restoreStock(stockUpdate(productId, 3));
+        assertEquals(9, stockOf(productId));
+        assertEquals(9, redisTemplate.opsForValue().get("product-stock::" + productId));
+    }
+
+    @Test
+    void deductionBelowZeroChangesNothing() {
+        Long productId = createProduct("INSUFFICIENT", 2);
+        Long version = productRepository.findById(productId).orElseThrow().getVersion();
+
+        assertThrows(StockUpdateException.class, () -> productService.deductStock(stockUpdate(productId, 3)));
+
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(2, product.getStockQuantity());
+        assertEquals(version, product.getVersion());
+    }
+
+    @Test
+    void unknownProductIsNotFound() {
+        assertThrows(ProductNotFoundException.class, () -> productService.deductStock(stockUpdate(-1L, 1)));
+        assertThrows(ProductNotFoundException.class, () -> productService.restoreStock(stockUpdate(-1L, 1)));
+    }
+
+    @Test
+    void stripedProductGoesToItsStripes() {
+        Long productId = createProduct("STRIPED", 8);
+        stripedStockService.configure(productId, 2);
+        redisTemplate.opsForValue().set("product-stock::" + productId, 8);
+
+        // The product row holds nothing once striped, so the conditional UPDATE matches no row
+        productService.deductStock(stockUpdate(productId, 5));
+        assertEquals(3, productRepository.findById(productId).orElseThrow().getAvailableStock());
+        assertNull(redisTemplate.opsForValue().get("product-stock::" + productId));
+
+        assertThrows(StockUpdateException.class, () -> productService.deductStock(stockUpdate(productId, 4)));
+        productService.restoreStock(stockUpdate(productId, 1));
+        assertEquals(4, productRepository.findById(productId).orElseThrow().getAvailableStock());
+    }
+
+    @Test
+    void concurrentDeductionsSellOutExactly() throws Exception {
+        int stock = 50;
+        Long productId = createProduct("SELL-OUT", stock);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (int i = 0; i < stock + 30; i++) {
+                attempts.add(executor.submit(() -> {
+                    try {
+                        productService.deductStock(stockUpdate(productId, 1));
+                        return true;
+                    } catch (StockUpdateException e) {
+                        return false;
+                    }
+                }));
+            }
+            int deducted = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(30, TimeUnit.SECONDS)) {
+                    deducted++;
+                }
+            }
+            assertEquals(stock, deducted);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, stockOf(productId));
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    private Long createProduct(String sku, int stockQuantity) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Stocked product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stockQuantity);
+        return productRepository.save(product).getId();
+    }
+
+    private static StockUpdateDTO stockUpdate(Long productId, int quantity) {
+        StockUpdateDTO stockUpdate = new StockUpdateDTO();
+        stockUpdate.setProductId(productId);
+        stockUpdate.setQuantity(quantity);
+        return stockUpdate;
+    }
+}
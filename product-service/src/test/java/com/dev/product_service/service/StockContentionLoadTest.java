@@ -0,0 +1,391 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.StockLedgerOffset;
+import com.dev.product_service.enums.StockOperation;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.StockLedgerOffsetRepository;
+import com.dev.product_service.repository.StockReservationRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stock deductions per second with many threads on one product. "before" replays the previous
+ * deductStock (load, check in Java, save under @Version), where a lost optimistic race fails
+ * the deduction; "after" calls deductStock, one conditional UPDATE ... RETURNING; "striped"
+ * calls it on a product whose stock is split over {@code -Dstripes} rows while the rebalancer
+ * runs; "ledger" deducts from the Redis stock ledger while its flusher writes behind.
+ * RETURNING needs PostgreSQL, so this starts an embedded server, which refuses to run as root,
+ * and an embedded Redis.
+ * Run with {@code mvn test -Dtest=StockContentionLoadTest -Dbenchmark=true [-Dthreads=64] [-Dduration-s=5] [-Dstripes=16]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.datasource.hikari.maximum-pool-size=64",
+        "logging.level.com.dev.product_service=WARN",
+        "logging.level.com.dev.product_service.service.StockContentionLoadTest=INFO",
+        "product.stock.ledger.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, StockLedgerFlusher.class,
+        CatalogVersions.class, StockContentionLoadTest.Stubs.class})
+class StockContentionLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockContentionLoadTest.class);
+    private static final int THREADS = Integer.getInteger("threads", 64);
+    private static final long DURATION_MS = TimeUnit.SECONDS.toMillis(Long.getLong("duration-s", 5));
+    private static final int STRIPES = Integer.getInteger("stripes", 16);
+    // Enough that no run sells out
+    private static final int INITIAL_STOCK = 100_000_000;
+
+    private static EmbeddedPostgres postgres;
+    private static RedisServer redis;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockLedgerFlusher stockLedgerFlusher;
+
+    @Autowired
+    private StockLedgerOffsetRepository stockLedgerOffsetRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // Stopped with the JVM, after the cached test context has closed its connection pool
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+
+        int redisPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            redisPort = socket.getLocalPort();
+        }
+        redis = new RedisServer(redisPort);
+        redis.start();
+        registry.add("spring.data.redis.port", () -> redisPort);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    // Flyway is off here, so the row its migration inserts is created by hand
+    @BeforeEach
+    void seedLedgerOffset() {
+        if (!stockLedgerOffsetRepository.existsById(StockLedgerService.STREAM_KEY)) {
+            StockLedgerOffset offset = new StockLedgerOffset();
+            offset.setStream(StockLedgerService.STREAM_KEY);
+            offset.setLastId("0-0");
+            stockLedgerOffsetRepository.save(offset);
+        }
+    }
+
+    @Test
+    void atomicDeductionSustainsContention() throws Exception {
+        Long productId = createProduct("HOT-SKU", INITIAL_STOCK);
+        logger.info(String.format("%-7s %8s %14s %12s %12s",
+                "mode", "threads", "deducted/s", "failed/s", "stock ok"));
+
+        RunStats before = run("before", productId, () -> transactionTemplate.execute(status -> {
+            // The previous deductStock: read, check and write back under optimistic locking
+            Product product = productRepository.findById(productId).orElseThrow();
+            if (product.getStockQuantity() < 1) {
+                throw new StockUpdateException("Insufficient stock");
+            }
+            product.setStockQuantity(product.getStockQuantity() - 1);
+            return productRepository.save(product);
+        }));
+
+        RunStats after = run("after", productId, () -> productService.deductStock(stockUpdate(productId, 1)));
+
+        Long stripedId = createProduct("HOT-SKU-STRIPED", INITIAL_STOCK);
+        productService.configureStockStripes(stripedId, STRIPES);
+        RunStats striped = whileRunning(stripedStockService::rebalanceAll, () ->
+                run("striped", stripedId, () -> productService.deductStock(stockUpdate(stripedId, 1))));
+
+        Long ledgerId = createProduct("HOT-SKU-LEDGER", INITIAL_STOCK);
+        // The final flush writes the remaining deltas behind before the stock is compared
+        RunStats ledger = whileRunning(stockLedgerFlusher::flush, () ->
+                run("ledger", ledgerId, () -> stockLedgerService.deductStock(stockUpdate(ledgerId, 1)),
+                        stockLedgerFlusher::flush));
+
+        assertEquals(0, after.failed, "atomic deductions should never fail while stock lasts");
+        assertEquals(0, striped.failed, "striped deductions should never fail while stock lasts");
+        assertEquals(0, ledger.failed, "ledger deductions should never fail while stock lasts");
+        assertEquals(stockOf(ledgerId), ledgerLevel(ledgerId), "the flushed database level should match the ledger");
+        assertTrue(after.deducted > before.deducted, "atomic deductions should sustain higher throughput");
+    }
+
+    // Drains a small striped stock: spill-over and the locked fallback must sell exactly what there is
+    @Test
+    void stripedStockSellsOutExactly() throws Exception {
+        int initialStock = 1_000;
+        int quantity = 3;
+        Long productId = createProduct("SCARCE-SKU", initialStock);
+        productService.configureStockStripes(productId, STRIPES);
+
+        AtomicLong sold = new AtomicLong();
+        whileRunning(stripedStockService::rebalanceAll, () -> {
+            ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                results.add(workers.submit(() -> {
+                    while (true) {
+                        try {
+                            productService.deductStock(stockUpdate(productId, quantity));
+                            sold.addAndGet(quantity);
+                        } catch (StockUpdateException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            workers.shutdown();
+            return null;
+        });
+
+        assertEquals(initialStock % quantity, stockOf(productId));
+        assertEquals(initialStock - initialStock % quantity, sold.get());
+    }
+
+    // Reservations of two products at a time through the ledger script: each applies to both or neither,
+    // and a retried idempotency key is not applied again
+    @Test
+    void ledgerReservesAtomicallyAndOnce() throws Exception {
+        Long first = createProduct("LEDGER-A", 1_000);
+        Long second = createProduct("LEDGER-B", 600);
+
+        AtomicLong reserved = new AtomicLong();
+        AtomicLong keys = new AtomicLong();
+        whileRunning(stockLedgerFlusher::flush, () -> {
+            ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                results.add(workers.submit(() -> {
+                    while (true) {
+                        try {
+                            stockLedgerService.reserveStock(reservation("order-" + keys.incrementAndGet(), first, second));
+                            reserved.incrementAndGet();
+                        } catch (StockUpdateException e) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            workers.shutdown();
+            return null;
+        });
+        StockReservationResultDTO retry = stockLedgerService.reserveStock(reservation("order-1", first, second));
+        stockLedgerFlusher.flush();
+        stockLedgerService.reconcile();
+
+        assertTrue(retry.isDuplicate());
+        assertEquals(300, reserved.get());
+        assertEquals(100, stockOf(first));
+        assertEquals(0, stockOf(second));
+        assertEquals(100, ledgerLevel(first));
+        assertEquals(0, ledgerLevel(second));
+        assertEquals(300, stockReservationRepository.count());
+    }
+
+    // Runs the task in a loop alongside the given work, as the scheduler would (only more often)
+    private <T> T whileRunning(Runnable task, Callable<T> work) throws Exception {
+        AtomicBoolean done = new AtomicBoolean();
+        Thread background = new Thread(() -> {
+            while (!done.get()) {
+                task.run();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            }
+        });
+        background.start();
+        try {
+            return work.call();
+        } finally {
+            done.set(true);
+            background.join();
+        }
+    }
+
+    private RunStats run(String mode, Long productId, Runnable deduction) throws Exception {
+        return run(mode, productId, deduction, () -> {
+        });
+    }
+
+    // settle runs once the deductions stop, before the final stock level is read
+    private RunStats run(String mode, Long productId, Runnable deduction, Runnable settle) throws Exception {
+        int stockBefore = stockOf(productId);
+        AtomicLong deducted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            results.add(workers.submit(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    try {
+                        deduction.run();
+                        deducted.incrementAndGet();
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        workers.shutdown();
+        settle.run();
+
+        double seconds = DURATION_MS / 1000.0;
+        boolean stockConsistent = stockBefore - stockOf(productId) == deducted.get();
+        logger.info(String.format("%-7s %8d %14.0f %12.0f %12s", mode, THREADS, deducted.get() / seconds,
+                failed.get() / seconds, stockConsistent));
+        assertTrue(stockConsistent, mode + ": every successful deduction should be reflected in the stock");
+        return new RunStats(deducted.get(), failed.get());
+    }
+
+    private Long createProduct(String sku, int stockQuantity) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Hot product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stockQuantity);
+        return productRepository.save(product).getId();
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getAvailableStock();
+    }
+
+    private int ledgerLevel(Long productId) {
+        ProductDTO product = new ProductDTO();
+        product.setId(productId);
+        stockLedgerService.applyLevels(List.of(product));
+        return product.getStockQuantity();
+    }
+
+    // 3 of the first product and 2 of the second
+    private static StockReservationDTO reservation(String idempotencyKey, Long first, Long second) {
+        StockReservationDTO reservation = new StockReservationDTO();
+        reservation.setIdempotencyKey(idempotencyKey);
+        reservation.setOperation(StockOperation.DEDUCT);
+        reservation.getItems().add(stockUpdate(first, 3));
+        reservation.getItems().add(stockUpdate(second, 2));
+        return reservation;
+    }
+
+    private static StockUpdateDTO stockUpdate(Long productId, int quantity) {
+        StockUpdateDTO stockUpdate = new StockUpdateDTO();
+        stockUpdate.setProductId(productId);
+        stockUpdate.setQuantity(quantity);
+        return stockUpdate;
+    }
+
+    private record RunStats(long deducted, long failed) {
+    }
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        LettuceConnectionFactory redisConnectionFactory(@Value("${spring.data.redis.port}") int port) {
+            return new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        }
+
+        @Bean
+        StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            return new StringRedisTemplate(redisConnectionFactory);
+        }
+
+        @Bean
+        RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory redisConnectionFactory) {
+            RedisTemplate<String, Object> template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            return template;
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.StockHoldDTO;
+import com.dev.product_service.dto.StockHoldRequestDTO;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.StockHold;
+import com.dev.product_service.enums.StockHoldStatus;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.StockHoldRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Answers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expiry of stock holds. The wheel test schedules {@code -Dholds} entries on a simulated clock and
+ * ticks through them, checking each fires once, on time. The database test places
+ * {@code -Dholds-db} one-unit holds twice over: the first set expires and is released in batches
+ * by expireDue, the second is released one hold (and one transaction) at a time, as explicit
+ * releases are. Needs an embedded PostgreSQL, which refuses to run as root.
+ * Run with {@code mvn test -Dtest=StockHoldExpiryLoadTest -Dbenchmark=true [-Dholds=500000] [-Dholds-db=2000]}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "logging.level.com.dev.product_service=WARN",
+        "logging.level.com.dev.product_service.service.StockHoldExpiryLoadTest=INFO"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, StockHoldService.class,
+        CatalogVersions.class, StockHoldExpiryLoadTest.Stubs.class})
+class StockHoldExpiryLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockHoldExpiryLoadTest.class);
+    private static final int WHEEL_HOLDS = Integer.getInteger("holds", 500_000);
+    private static final int DB_HOLDS = Integer.getInteger("holds-db", 2_000);
+    private static final int THREADS = 16;
+    private static final int PRODUCTS = 100;
+    private static final long TICK_MS = 100;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.start();
+        // Stopped with the JVM, after the cached test context has closed its connection pool
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+    }
+
+    @Test
+    void timingWheelFiresEachHoldOnceAndOnTime() {
+        // TTLs of up to 15 minutes, and one in a thousand beyond the 19 days the wheels cover
+        Random random = new Random(42);
+        long[] deadlines = new long[WHEEL_HOLDS];
+        for (int i = 0; i < WHEEL_HOLDS; i++) {
+            deadlines[i] = i % 1000 == 0 ? 20L * 24 * 3600 * 1000 + random.nextInt(3_600_000) : random.nextInt(900_000);
+        }
+
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK_MS, 0);
+        long start = System.nanoTime();
+        for (int i = 0; i < WHEEL_HOLDS; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+        long scheduleNanos = System.nanoTime() - start;
+        assertEquals(WHEEL_HOLDS, wheel.size());
+
+        boolean[] fired = new boolean[WHEEL_HOLDS];
+        int firedCount = 0;
+        long now = 0;
+        start = System.nanoTime();
+        while (firedCount < WHEEL_HOLDS) {
+            // Minute steps once the short TTLs are done, to get through the long ones quickly
+            long step = now < 1_000_000 ? TICK_MS : 60_000;
+            now += step;
+            for (int hold : wheel.advance(now)) {
+                assertTrue(!fired[hold], "hold " + hold + " fired twice");
+                assertTrue(deadlines[hold] <= now && now - deadlines[hold] < step + TICK_MS,
+                        "hold " + hold + " due at " + deadlines[hold] + " fired at " + now);
+                fired[hold] = true;
+                firedCount++;
+            }
+        }
+        long advanceNanos = System.nanoTime() - start;
+        assertEquals(0, wheel.size());
+
+        logger.info(String.format("wheel: %d holds, scheduled in %.0f ns each, fired in %.0f ns each",
+                WHEEL_HOLDS, (double) scheduleNanos / WHEEL_HOLDS, (double) advanceNanos / WHEEL_HOLDS));
+    }
+
+    @Test
+    void expiredHoldsAreReleasedInBatches() throws Exception {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(createProduct("HOLD-SKU-" + i, 2 * DB_HOLDS));
+        }
+        long stockBefore = totalStock(productIds);
+
+        long start = System.nanoTime();
+        List<String> expiring = placeHolds(productIds, 1);
+        double placeSeconds = (System.nanoTime() - start) / 1e9;
+        List<String> released = placeHolds(productIds, 3600);
+        assertEquals(stockBefore - 2L * DB_HOLDS, totalStock(productIds));
+
+        // Past the 1 s TTL and the tick it rounds up to
+        Thread.sleep(1000 + 2 * TICK_MS);
+        start = System.nanoTime();
+        stockHoldService.expireDue();
+        double expireSeconds = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        released.forEach(stockHoldService::release);
+        double releaseSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, StockHoldStatus> statuses = stockHoldRepository.findAll().stream()
+                .collect(Collectors.toMap(StockHold::getId, StockHold::getStatus));
+        logger.info(String.format("placed:             %8.0f holds/s (%d threads)", DB_HOLDS / placeSeconds, THREADS));
+        logger.info(String.format("expired in batches: %8.0f holds/s", DB_HOLDS / expireSeconds));
+        logger.info(String.format("released one by one:%8.0f holds/s", DB_HOLDS / releaseSeconds));
+
+        assertTrue(expiring.stream().allMatch(id -> statuses.get(id) == StockHoldStatus.EXPIRED));
+        assertTrue(released.stream().allMatch(id -> statuses.get(id) == StockHoldStatus.RELEASED));
+        assertEquals(stockBefore, totalStock(productIds), "every hold's stock should be back");
+    }
+
+    // One unit of a random product per hold, placed from THREADS threads
+    private List<String> placeHolds(List<Long> productIds, int ttlSeconds) throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        List<String> holdIds = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int count = DB_HOLDS / THREADS + (thread < DB_HOLDS % THREADS ? 1 : 0);
+            results.add(workers.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    StockUpdateDTO item = new StockUpdateDTO();
+                    item.setProductId(productIds.get(ThreadLocalRandom.current().nextInt(productIds.size())));
+                    item.setQuantity(1);
+                    StockHoldRequestDTO request = new StockHoldRequestDTO();
+                    request.setTtlSeconds(ttlSeconds);
+                    request.getItems().add(item);
+                    StockHoldDTO hold = stockHoldService.hold(request);
+                    holdIds.add(hold.getId());
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        workers.shutdown();
+        return holdIds;
+    }
+
+    private Long createProduct(String sku, int stockQuantity) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Held product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stockQuantity);
+        return productRepository.save(product).getId();
+    }
+
+    private long totalStock(List<Long> productIds) {
+        return productRepository.findAllById(productIds).stream().mapToLong(Product::getAvailableStock).sum();
+    }
+
+    @TestConfiguration
+    static class Stubs {
+
+        @Bean
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, Object> redisTemplate() {
+            return Mockito.mock(RedisTemplate.class, Answers.RETURNS_DEEP_STUBS);
+        }
+
+        // The stock ledger stays disabled here
+        @Bean
+        StringRedisTemplate stringRedisTemplate() {
+            return Mockito.mock(StringRedisTemplate.class);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.cache.CatalogVersions;
+import com.dev.product_service.dto.ProductDTO;
+import com.dev.product_service.dto.StockHoldDTO;
+import com.dev.product_service.dto.StockHoldRequestDTO;
+import com.dev.product_service.dto.StockItemResultDTO;
+import com.dev.product_service.dto.StockReservationDTO;
+import com.dev.product_service.dto.StockReservationResultDTO;
+import com.dev.product_service.dto.StockUpdateDTO;
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.StockLedgerOffset;
+import com.dev.product_service.enums.StockHoldStatus;
+import com.dev.product_service.enums.StockOperation;
+import com.dev.product_service.exception.ProductNotFoundException;
+import com.dev.product_service.exception.StockUpdateException;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.StockHoldItemRepository;
+import com.dev.product_service.repository.StockHoldRepository;
+import com.dev.product_service.repository.StockLedgerOffsetRepository;
+import com.dev.product_service.repository.StockReservationRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The stock ledger's Lua scripts against Redis and PostgreSQL: a reservation changes every
+ * counter or none, a repeated idempotency key is reported instead of applied again, a counter is
+ * loaded as its database level plus the entries not flushed yet, and never against a database
+ * read that a flush has overtaken. The flusher must get past stream entries it cannot apply. An
+ * undone hold frees its key along with the stock, so a retry of the hold takes the stock again.
+ */
+@EnabledIf("com.dev.product_service.service.EmbeddedStores#postgresAvailable")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "logging.level.com.dev.product_service=WARN",
+        "product.stock.ledger.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, StripedStockService.class, StockLedgerService.class, StockLedgerFlusher.class,
+        CatalogVersions.class, EmbeddedStores.RedisBeans.class})
+class StockLedgerScriptsTest {
+
+    private static RedisServer redis;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+
+    @Autowired
+    private StockLedgerFlusher stockLedgerFlusher;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedgerOffsetRepository stockLedgerOffsetRepository;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private StockHoldItemRepository stockHoldItemRepository;
+
+    @DynamicPropertySource
+    static void stores(DynamicPropertyRegistry registry) throws IOException {
+        redis = EmbeddedStores.register(registry, "stock_ledger");
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @BeforeEach
+    void seedLedgerOffset() {
+        if (!stockLedgerOffsetRepository.existsById(StockLedgerService.STREAM_KEY)) {
+            StockLedgerOffset offset = new StockLedgerOffset();
+            offset.setStream(StockLedgerService.STREAM_KEY);
+            offset.setLastId("0-0");
+            stockLedgerOffsetRepository.save(offset);
+        }
+    }
+
+    @Test
+    void reservationAppliesToEveryProductOrNone() {
+        Long first = createProduct("LEDGER-A", 10);
+        Long second = createProduct("LEDGER-B", 5);
+        long entries = streamLength();
+
+        assertThrows(StockUpdateException.class,
+                () -> stockLedgerService.reserveStock(reservation("order-1", first, 3, second, 6)));
+        assertEquals("10", counter(first));
+        assertEquals("5", counter(second));
+        assertEquals(entries, streamLength());
+
+        StockReservationResultDTO applied = stockLedgerService.reserveStock(reservation("order-1", first, 3, second, 5));
+        assertFalse(applied.isDuplicate());
+        assertEquals(List.of(7, 0), levels(applied));
+
+        StockReservationResultDTO retried = stockLedgerService.reserveStock(reservation("order-1", first, 3, second, 5));
+        assertTrue(retried.isDuplicate());
+        assertEquals(List.of(7, 0), levels(retried));
+        assertEquals(entries + 1, streamLength());
+
+        stockLedgerFlusher.flushBatch();
+        assertEquals(7, stockOf(first));
+        assertEquals(0, stockOf(second));
+        assertTrue(stockReservationRepository.existsById("order-1"));
+    }
+
+    @Test
+    void loadCountsEntriesNotFlushedYet() {
+        Long productId = createProduct("LEDGER-PENDING", 10);
+        stockLedgerService.deductStock(stockUpdate(productId, 4));
+        assertEquals(10, stockOf(productId));
+
+        // A lost counter is reloaded from the database level, which does not have the deduction yet
+        stringRedisTemplate.delete(counterKey(productId));
+        stockLedgerService.deductStock(stockUpdate(productId, 1));
+        assertEquals("5", counter(productId));
+
+        stockLedgerFlusher.flushBatch();
+        assertEquals(5, stockOf(productId));
+        assertEquals("5", counter(productId));
+    }
+
+    @Test
+    void reconcileCorrectsDriftedCounters() {
+        Long drifted = createProduct("LEDGER-DRIFTED", 10);
+        Long unloaded = createProduct("LEDGER-UNLOADED", 3);
+        stockLedgerService.deductStock(stockUpdate(drifted, 2));
+        stringRedisTemplate.opsForValue().set(counterKey(drifted), "999");
+
+        stockLedgerService.reconcile();
+
+        assertEquals("8", counter(drifted));
+        assertEquals("3", counter(unloaded));
+    }
+
+    @Test
+    void loadRefusesADatabaseReadOvertakenByAFlush() {
+        Long productId = createProduct("LEDGER-STALE", 10);
+        // As if a flush committed after the database levels were read
+        stringRedisTemplate.opsForValue().set(StockLedgerService.FLUSHED_ID_KEY, "9999999999999-0");
+        try {
+            assertThrows(StockUpdateException.class,
+                    () -> stockLedgerService.deductStock(stockUpdate(productId, 1)));
+            assertNull(counter(productId));
+        } finally {
+            // Writes the stored offset back, as every flush does
+            stockLedgerFlusher.flushBatch();
+        }
+        stockLedgerService.deductStock(stockUpdate(productId, 1));
+        assertEquals("9", counter(productId));
+    }
+
+    @Test
+    void overlongIdempotencyKeyIsRejectedBeforeTheScript() {
+        Long first = createProduct("LEDGER-KEY-A", 10);
+        Long second = createProduct("LEDGER-KEY-B", 10);
+        long entries = streamLength();
+
+        assertThrows(StockUpdateException.class, () -> stockLedgerService.reserveStock(
+                reservation("k".repeat(ProductService.MAX_IDEMPOTENCY_KEY_LENGTH + 1), first, 1, second, 1)));
+
+        assertNull(counter(first));
+        assertEquals(entries, streamLength());
+    }
+
+    @Test
+    void flushSkipsEntriesItCannotApply() {
+        Long productId = createProduct("LEDGER-MALFORMED", 10);
+        stockLedgerService.deductStock(stockUpdate(productId, 1));
+        // Neither written by the apply script; the second still carries deltas worth applying
+        stringRedisTemplate.opsForStream().add(StockLedgerService.STREAM_KEY,
+                Map.of("operation", "DEDUCT", "items", productId + ":not-a-number", "key", ""));
+        stringRedisTemplate.opsForStream().add(StockLedgerService.STREAM_KEY,
+                Map.of("operation", "DEDUCT", "items", productId + ":-2", "key", "k".repeat(150)));
+        stockLedgerService.deductStock(stockUpdate(productId, 3));
+
+        stockLedgerFlusher.flushBatch();
+
+        assertEquals(4, stockOf(productId));
+        assertFalse(stockReservationRepository.existsById("k".repeat(150)));
+        String lastId = stockLedgerOffsetRepository.findById(StockLedgerService.STREAM_KEY).orElseThrow().getLastId();
+        assertEquals(lastId, stringRedisTemplate.opsForValue().get(StockLedgerService.FLUSHED_ID_KEY));
+        assertEquals(0, stockLedgerFlusher.flushBatch());
+    }
+
+    @Test
+    void updatedLevelReachesTheLedgerOnlyOnCommit() {
+        Long productId = createProduct("LEDGER-UPDATE", 10);
+        stockLedgerService.deductStock(stockUpdate(productId, 1));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.updateProduct(productId, update(productId, 50));
+            status.setRollbackOnly();
+        });
+        assertEquals("9", counter(productId));
+
+        ProductDTO updated = productService.updateProduct(productId, update(productId, 50));
+        assertEquals(50, updated.getStockQuantity());
+        assertEquals("50", counter(productId));
+        stockLedgerFlusher.flushBatch();
+        assertEquals(50, stockOf(productId));
+    }
+
+    @Test
+    void holdWhoseSaveFailedTakesTheStockAgainOnRetry() {
+        Long productId = createProduct("LEDGER-HOLD", 10);
+        AtomicBoolean failSave = new AtomicBoolean(true);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                if (failSave.getAndSet(false)) {
+                    throw new CannotCreateTransactionException("Database unavailable");
+                }
+                return super.execute(action);
+            }
+        };
+        StockHoldService stockHoldService = new StockHoldService(stockHoldRepository, stockHoldItemRepository,
+                productService, stockLedgerService, transactionTemplate, 100);
+        ReflectionTestUtils.setField(stockHoldService, "maxTtlSeconds", 60);
+        StockHoldRequestDTO request = new StockHoldRequestDTO();
+        request.setHoldId("retried-hold");
+        request.setTtlSeconds(60);
+        request.getItems().add(stockUpdate(productId, 4));
+
+        assertThrows(CannotCreateTransactionException.class, () -> stockHoldService.hold(request));
+        assertEquals("10", counter(productId));
+
+        StockHoldDTO hold = stockHoldService.hold(request);
+        assertEquals(StockHoldStatus.HELD, hold.getStatus());
+        assertEquals("6", counter(productId));
+
+        // The compensation left no marker that would make the release a duplicate
+        stockHoldService.release("retried-hold");
+        assertEquals("10", counter(productId));
+        stockLedgerFlusher.flushBatch();
+        assertEquals(10, stockOf(productId));
+    }
+
+    @Test
+    void unknownProductIsNotFound() {
+        assertThrows(ProductNotFoundException.class, () -> stockLedgerService.deductStock(stockUpdate(-1L, 1)));
+    }
+
+    private String counter(Long productId) {
+        return stringRedisTemplate.opsForValue().get(counterKey(productId));
+    }
+
+    private static String counterKey(Long productId) {
+        return "{stock-ledger}:stock::" + productId;
+    }
+
+    private long streamLength() {
+        Long length = stringRedisTemplate.opsForStream().size(StockLedgerService.STREAM_KEY);
+        return length != null ? length : 0;
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    private static List<Integer> levels(StockReservationResultDTO result) {
+        return result.getItems().stream().map(StockItemResultDTO::getRemainingStock).toList();
+    }
+
+    private ProductDTO update(Long productId, int stockQuantity) {
+        ProductDTO update = new ProductDTO();
+        update.setId(productId);
+        update.setName("Updated ledger product");
+        update.setPrice(BigDecimal.TEN);
+        update.setStockQuantity(stockQuantity);
+        return update;
+    }
+
+    private Long createProduct(String sku, int stockQuantity) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Ledger product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stockQuantity);
+        return productRepository.save(product).getId();
+    }
+
+    private static StockReservationDTO reservation(String idempotencyKey, Long first, int firstQuantity,
+                                                   Long second, int secondQuantity) {
+        StockReservationDTO reservation = new StockReservationDTO();
+        reservation.setIdempotencyKey(idempotencyKey);
+        reservation.setOperation(StockOperation.DEDUCT);
+        reservation.setItems(List.of(stockUpdate(first, firstQuantity), stockUpdate(second, secondQuantity)));
+        return reservation;
+    }
+
+    private static StockUpdateDTO stockUpdate(Long productId, int quantity) {
+        StockUpdateDTO stockUpdate = new StockUpdateDTO();
+        stockUpdate.setProductId(productId);
+        stockUpdate.setQuantity(quantity);
+        return stockUpdate;
+    }
+}
@@ -0,0 +1,202 @@
+package com.dev.product_service.service;
+
+import com.dev.product_service.entity.Product;
+import com.dev.product_service.entity.ProductStockStripe;
+import com.dev.product_service.repository.ProductRepository;
+import com.dev.product_service.repository.ProductStockStripeRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import redis.embedded.RedisServer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deductions from striped stock against PostgreSQL: spill-over from dry stripes, the locked
+ * fallback that takes a quantity piecemeal or nothing at all, the rebalancer, and the savepoint
+ * that gives back the row lock of a stripe attempt that waited and then found too little.
+ */
+@EnabledIf("com.dev.product_service.service.EmbeddedStores#postgresAvailable")
+@DataJpaTest(showSql = false, properties = {
+        "spring.flyway.enabled=false",
+        // Not create-drop: the drop at shutdown can race the embedded server's own shutdown hook
+        "spring.jpa.hibernate.ddl-auto=create",
+        "logging.level.com.dev.product_service=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(StripedStockService.class)
+class StripedStockServiceTest {
+
+    private static RedisServer redis;
+
+    @Autowired
+    private StripedStockService stripedStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductStockStripeRepository productStockStripeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @DynamicPropertySource
+    static void stores(DynamicPropertyRegistry registry) throws IOException {
+        redis = EmbeddedStores.register(registry, "striped_stock");
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        redis.stop();
+    }
+
+    @Test
+    void deductionsSpillOverToStripesThatStillHoldEnough() {
+        Long productId = createProduct("SPILL", 9);
+        stripedStockService.configure(productId, 3);
+
+        // Whichever stripe each one starts at, the three deductions together must drain all three
+        for (int i = 0; i < 3; i++) {
+            assertTrue(stripedStockService.deduct(productId, 3, 3));
+        }
+
+        assertEquals(List.of(0, 0, 0), stripes(productId));
+        assertFalse(stripedStockService.deduct(productId, 3, 1));
+    }
+
+    @Test
+    void fallbackTakesPiecemealOrNothing() {
+        Long productId = createProduct("FALLBACK", 0);
+        stripedStockService.configure(productId, 3);
+        setStripes(productId, 2, 2, 2);
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 1 WHERE id = ?", productId);
+
+        // No stripe holds 5, so the fallback takes the product row's 1 and then stripes in order
+        assertTrue(stripedStockService.deduct(productId, 3, 5));
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStockQuantity());
+        assertEquals(2, stripes(productId).stream().mapToInt(Integer::intValue).sum());
+
+        assertFalse(stripedStockService.deduct(productId, 3, 3));
+        assertEquals(2, productRepository.findById(productId).orElseThrow().getAvailableStock());
+    }
+
+    @Test
+    void rebalanceSpreadsProductRowAndUnevenStripes() {
+        Long productId = createProduct("REBALANCE", 0);
+        stripedStockService.configure(productId, 3);
+        setStripes(productId, 0, 0, 6);
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 4 WHERE id = ?", productId);
+
+        stripedStockService.rebalanceAll();
+
+        assertEquals(List.of(4, 3, 3), stripes(productId));
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(0, product.getStockQuantity());
+        assertEquals(10, product.getAvailableStock());
+
+        // Balanced stripes and an empty product row are left alone
+        Long version = product.getVersion();
+        stripedStockService.rebalanceAll();
+        assertEquals(version, productRepository.findById(productId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void failedStripeAttemptReleasesItsRowLock() throws Exception {
+        Long productId = createProduct("SAVEPOINT", 5);
+        stripedStockService.configure(productId, 1);
+
+        try (Connection stripeHolder = dataSource.getConnection();
+             Connection productHolder = dataSource.getConnection();
+             Connection probe = dataSource.getConnection()) {
+            // A concurrent deduction holds the stripe, and the product row is held so the deduction under
+            // test pauses in its fallback, after its stripe attempt
+            stripeHolder.setAutoCommit(false);
+            execute(stripeHolder, "UPDATE product_stock_stripes SET quantity = quantity - 4 WHERE product_id = " + productId);
+            productHolder.setAutoCommit(false);
+            execute(productHolder, "SELECT id FROM products WHERE id = " + productId + " FOR UPDATE");
+
+            CompletableFuture<Boolean> deduction = CompletableFuture.supplyAsync(
+                    () -> stripedStockService.deduct(productId, 1, 3));
+            awaitLockWait("product_stock_stripes");
+            // The stripe attempt re-checks against the 1 left, fails, and the deduction moves on to the product row
+            stripeHolder.commit();
+            awaitLockWait("products");
+
+            // Without the rollback to the savepoint the failed attempt would still hold the stripe
+            execute(probe, "SET lock_timeout = '2s'");
+            execute(probe, "UPDATE product_stock_stripes SET quantity = quantity WHERE product_id = " + productId);
+
+            productHolder.commit();
+            assertFalse(deduction.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(1), stripes(productId));
+    }
+
+    // Waits until a session is blocked on a lock while running a statement on the given table
+    private void awaitLockWait(String table) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Integer waiting = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity " +
+                    "WHERE wait_event_type = 'Lock' AND query ~* ('\\m' || ? || '\\M')", Integer.class, table);
+            if (waiting != null && waiting > 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No session started waiting for a lock on " + table);
+    }
+
+    private Long createProduct(String sku, int stockQuantity) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName("Striped product");
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stockQuantity);
+        return productRepository.save(product).getId();
+    }
+
+    private void setStripes(Long productId, int... quantities) {
+        for (int stripe = 0; stripe < quantities.length; stripe++) {
+            jdbcTemplate.update("UPDATE product_stock_stripes SET quantity = ? WHERE product_id = ? AND stripe = ?",
+                    quantities[stripe], productId, stripe);
+        }
+    }
+
+    private List<Integer> stripes(Long productId) {
+        return productStockStripeRepository.findByProductIdOrderByStripe(productId).stream()
+                .map(ProductStockStripe::getQuantity)
+                .toList();
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.dev.product_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Scheduling on the timing wheel with 100 ms ticks: entries fire on the first tick at or after
+ * their deadline, whichever wheel they start on and however far the clock jumps between calls,
+ * and deadlines already past fire on the next call.
+ */
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+    // Not on a tick or a wheel boundary, so slots are not all counted from zero
+    private static final long START = 1_234_567;
+    private static final long START_TICK = START / TICK;
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+
+    @Test
+    void firesOnFirstTickAtOrAfterDeadline() {
+        wheel.schedule("a", (START_TICK + 3) * TICK - 50);
+        wheel.schedule("b", (START_TICK + 3) * TICK);
+        assertEquals(2, wheel.size());
+
+        assertEquals(List.of(), wheel.advance((START_TICK + 3) * TICK - 1));
+        assertEquals(List.of("a", "b"), wheel.advance((START_TICK + 3) * TICK));
+        assertEquals(0, wheel.size());
+        assertEquals(List.of(), wheel.advance((START_TICK + 100) * TICK));
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        wheel.advance(START + 10 * TICK);
+        wheel.schedule("overdue", START - 60_000);
+        wheel.schedule("now", START + 10 * TICK - TICK);
+
+        // The clock has not moved on to another tick, and they still fire
+        assertEquals(List.of("overdue", "now"), wheel.advance(START + 10 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void entriesCascadeDownToFireOnTheirTick() {
+        // One on each wheel, by ticks from now: 64 slots per wheel, each spanning a turn of the one below
+        Map<String, Long> deadlineTicks = Map.of(
+                "level-0", START_TICK + 5,
+                "level-1", START_TICK + 64 * 5 + 7,
+                "level-2", START_TICK + 4096 * 2 + 64 * 3 + 1,
+                "level-3", START_TICK + 262_144 + 4096 * 7 + 64 * 63 + 63);
+        deadlineTicks.forEach((item, tick) -> wheel.schedule(item, tick * TICK));
+
+        Map<String, Long> firedTicks = new HashMap<>();
+        long lastTick = START_TICK + 262_144 * 2;
+        for (long tick = START_TICK + 1; tick <= lastTick; tick++) {
+            for (String item : wheel.advance(tick * TICK)) {
+                firedTicks.put(item, tick);
+            }
+        }
+
+        assertEquals(deadlineTicks, firedTicks);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void oneLongJumpFiresEverythingDue() {
+        wheel.schedule("soon", START + 2 * TICK);
+        wheel.schedule("later", START + 5_000 * TICK);
+        wheel.schedule("much-later", START + 300_000 * TICK);
+
+        assertEquals(List.of("soon", "later"), wheel.advance(START + 10_000 * TICK));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("much-later"), wheel.advance(START + 300_001 * TICK));
+    }
+
+    @Test
+    void deadlinesBeyondTheTopWheelWaitThere() {
+        // 64^4 ticks is a whole turn of the top wheel
+        long deadlineTick = START_TICK + 16_777_216 + 1_000;
+        wheel.schedule("far", deadlineTick * TICK);
+
+        assertEquals(List.of(), wheel.advance((START_TICK + 16_777_216) * TICK));
+        assertEquals(List.of(), wheel.advance((deadlineTick - 1) * TICK));
+        assertEquals(List.of("far"), wheel.advance(deadlineTick * TICK));
+    }
+}